@@ -0,0 +1,61 @@
+package no.fint.portal.customer.service;
+
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hashing;
+import no.fint.portal.model.contact.Contact;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.ldap.support.LdapNameBuilder;
+
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.function.UnaryOperator;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Identity map rotation time for growing contact directories, serial versus fork-join.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class IdentityRotationBenchmark {
+
+    private static final UnaryOperator<String> CONTACT_DN = nin ->
+            LdapNameBuilder.newInstance("ou=contacts,o=fint-test").add("cn", nin).build().toString();
+
+    @Param({"1000", "10000", "100000"})
+    public int contacts;
+
+    private final HashFunction hashFunction = Hashing.hmacMd5(new byte[16]);
+    private List<Contact> contactList;
+    private IdentityMapBuilder serial;
+    private IdentityMapBuilder parallel;
+
+    @Setup
+    public void setup() {
+        contactList = IntStream.range(0, contacts)
+                .mapToObj(i -> {
+                    Contact contact = new Contact();
+                    contact.setNin(String.format("%011d", 10000000000L + i));
+                    contact.setDn(CONTACT_DN.apply(contact.getNin()));
+                    return contact;
+                })
+                .collect(Collectors.toList());
+        serial = new IdentityMapBuilder(new ForkJoinPool(1));
+        parallel = new IdentityMapBuilder(new ForkJoinPool(Runtime.getRuntime().availableProcessors()));
+    }
+
+    @Benchmark
+    public IdentityMapping serial() {
+        return serial.build(contactList, hashFunction, CONTACT_DN);
+    }
+
+    @Benchmark
+    public IdentityMapping forkJoin() {
+        return parallel.build(contactList, hashFunction, CONTACT_DN);
+    }
+}
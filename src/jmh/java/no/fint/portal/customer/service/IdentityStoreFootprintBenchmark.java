@@ -0,0 +1,91 @@
+package no.fint.portal.customer.service;
+
+import com.google.common.collect.BiMap;
+import com.google.common.collect.ImmutableBiMap;
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hashing;
+import no.fint.portal.model.contact.Contact;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jol.info.GraphLayout;
+import org.springframework.ldap.support.LdapNameBuilder;
+
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.UnaryOperator;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Heap footprint and lookup time of the identity store against the former ImmutableBiMap.
+ * The retained heap of both structures is printed once per trial; the benchmarks measure lookups.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class IdentityStoreFootprintBenchmark {
+
+    private static final UnaryOperator<String> CONTACT_DN = nin ->
+            LdapNameBuilder.newInstance("ou=contacts,o=fint-test").add("cn", nin).build().toString();
+
+    @Param({"100000"})
+    public int contacts;
+
+    private final HashFunction hashFunction = Hashing.hmacMd5(new byte[16]);
+    private List<Contact> contactList;
+    private BiMap<String, String> biMap;
+    private IdentityMapping compact;
+
+    @Setup
+    public void setup() {
+        contactList = IntStream.range(0, contacts)
+                .mapToObj(i -> {
+                    Contact contact = new Contact();
+                    contact.setNin(String.format("%011d", 10000000000L + i));
+                    contact.setDn(CONTACT_DN.apply(contact.getNin()));
+                    return contact;
+                })
+                .collect(Collectors.toList());
+
+        ImmutableBiMap.Builder<String, String> builder = ImmutableBiMap.builder();
+        contactList.forEach(contact -> {
+            String hash = hashFunction.hashUnencodedChars(contact.getNin()).toString();
+            builder.put(contact.getNin(), hash);
+            builder.put(contact.getDn(), CONTACT_DN.apply(hash));
+        });
+        biMap = builder.build();
+        biMap.inverse();
+        compact = new IdentityMapBuilder(new ForkJoinPool(1)).build(contactList, hashFunction, CONTACT_DN);
+
+        System.out.printf("%nHeap for %d contacts: ImmutableBiMap %,d bytes, CompactIdentityStore %,d bytes%n",
+                contacts, GraphLayout.parseInstance(biMap).totalSize(), GraphLayout.parseInstance(compact).totalSize());
+    }
+
+    @Benchmark
+    public String biMapMaskDn() {
+        return biMap.get(nextContact().getDn());
+    }
+
+    @Benchmark
+    public String compactMaskDn() {
+        return compact.mask(nextContact().getDn());
+    }
+
+    @Benchmark
+    public String biMapUnmaskNin() {
+        return biMap.inverse().get(biMap.get(nextContact().getNin()));
+    }
+
+    @Benchmark
+    public String compactUnmaskNin() {
+        return compact.unmask(compact.mask(nextContact().getNin()));
+    }
+
+    private Contact nextContact() {
+        return contactList.get(ThreadLocalRandom.current().nextInt(contacts));
+    }
+}
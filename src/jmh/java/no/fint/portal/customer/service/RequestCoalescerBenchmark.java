@@ -0,0 +1,70 @@
+package no.fint.portal.customer.service;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Contention benchmark for PortalApiService lookups with 50 concurrent users.
+ * Compares the former global lock with per-key request coalescing against a simulated LDAP
+ * backend, where one request in twenty is a slow contact scan. Read the p0.99 row of each run.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 10)
+@Threads(50)
+@Fork(1)
+public class RequestCoalescerBenchmark {
+
+    @Param({"2"})
+    public long lookupMillis;
+
+    @Param({"50"})
+    public long scanMillis;
+
+    @Param({"20"})
+    public int organisations;
+
+    private final Object lock = new Object();
+    private final RequestCoalescer requestCoalescer = new RequestCoalescer();
+
+    @Benchmark
+    public String globalLock() {
+        String orgName = nextOrganisation();
+        if (orgName == null) {
+            synchronized (lock) {
+                return ldap("contacts", scanMillis);
+            }
+        }
+        synchronized (lock) {
+            return ldap(orgName, lookupMillis);
+        }
+    }
+
+    @Benchmark
+    public String coalesced() {
+        String orgName = nextOrganisation();
+        if (orgName == null) {
+            return requestCoalescer.execute(List.of("getContacts"), () -> ldap("contacts", scanMillis));
+        }
+        return requestCoalescer.execute(List.of("getOrganisation", orgName), () -> ldap(orgName, lookupMillis));
+    }
+
+    private String nextOrganisation() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        if (random.nextInt(20) == 0) {
+            return null;
+        }
+        return "org" + random.nextInt(organisations);
+    }
+
+    private static String ldap(String result, long millis) {
+        LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(millis));
+        return result;
+    }
+}
@@ -0,0 +1,114 @@
+package no.fint.portal.security;
+
+import no.fint.portal.customer.service.RoleConfig;
+import org.apache.commons.lang3.StringUtils;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.web.FilterInvocation;
+import org.springframework.security.web.authentication.preauth.PreAuthenticatedAuthenticationToken;
+
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.springframework.security.access.AccessDecisionVoter.*;
+
+/**
+ * Cost of {@link SecureUrlAccessDecisionVoter#vote} with the roles from application.yml,
+ * against the former stream based implementation. Run with {@code -prof gc} to compare allocations.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SecureUrlVoteBenchmark {
+
+    @Param({"/api/organisations/test_no/", "/api/events/test_no/1234", "/api/components/"})
+    public String requestUrl;
+
+    private RoleConfig roleConfig;
+    private String[] securePaths;
+    private SecureUrlAccessDecisionVoter voter;
+    private Authentication authentication;
+    private FilterInvocation invocation;
+
+    @Setup
+    public void setup() {
+        roleConfig = new RoleConfig();
+        roleConfig.setRoles(Stream.of(
+                role(RoleConfig.RoleId.ROLE_ADMIN, null),
+                role(RoleConfig.RoleId.ROLE_ADAPTER, "/api/adapters/"),
+                role(RoleConfig.RoleId.ROLE_CLIENT, "/api/clients/"),
+                role(RoleConfig.RoleId.ROLE_COMPONENT, "/api/components/organisation/"),
+                role(RoleConfig.RoleId.ROLE_ACCESS_PACKAGE, "/api/accesses/"),
+                role(RoleConfig.RoleId.ROLE_SUPPORT, "/api/tickets/"),
+                role(RoleConfig.RoleId.ROLE_TEST, "/api/tests/"),
+                role(RoleConfig.RoleId.ROLE_LOG, "/api/events/"),
+                role(RoleConfig.RoleId.ROLE_ASSET, "/api/assets/"),
+                role(RoleConfig.RoleId.ROLE_ORGANISATION, "/api/organisations/")
+        ).collect(Collectors.toList()));
+        securePaths = roleConfig.getRoles().stream()
+                .map(RoleConfig.Role::getUri)
+                .filter(StringUtils::isNotBlank)
+                .toArray(String[]::new);
+        voter = new SecureUrlAccessDecisionVoter(new AuthorizationService(roleConfig));
+
+        FintPortalUser user = new FintPortalUser(User.withUsername("user@test.com")
+                .password("")
+                .authorities(
+                        new FintPortalRoleAuthority("ROLE_ADAPTER@test_no"),
+                        new FintPortalRoleAuthority("ROLE_CLIENT@test_no"),
+                        new FintPortalRoleAuthority("ROLE_LOG@test_no"),
+                        new FintPortalRoleAuthority("ROLE_ORGANISATION@test_no"),
+                        new FintPortalRoleAuthority("ROLE_ORGANISATION@other_no"))
+                .build());
+        authentication = new PreAuthenticatedAuthenticationToken(user, "", user.getAuthorities());
+        invocation = new FilterInvocation(requestUrl, "GET");
+    }
+
+    @Benchmark
+    public int trie() {
+        return voter.vote(authentication, invocation, Collections.emptyList());
+    }
+
+    @Benchmark
+    public int streams() {
+        return legacyVote(authentication, invocation);
+    }
+
+    private int legacyVote(Authentication authentication, FilterInvocation invocation) {
+        if (!StringUtils.startsWithAny(invocation.getRequestUrl(), securePaths)) {
+            return ACCESS_GRANTED;
+        }
+        if (authentication.getAuthorities().isEmpty() || authentication.getAuthorities().contains(new SimpleGrantedAuthority("ROLE_ANONYMOUS"))) {
+            return ACCESS_DENIED;
+        }
+        final String url = invocation.getRequestUrl();
+        return roleConfig.getRoles().stream()
+                .filter(role -> StringUtils.startsWith(url, role.getUri()))
+                .mapToInt(role -> {
+                    final String path = StringUtils.removeStart(invocation.getRequestUrl(), role.getUri());
+                    return authentication.getAuthorities().stream()
+                            .filter(FintPortalAuthority.class::isInstance)
+                            .map(FintPortalAuthority.class::cast)
+                            .filter(auth -> auth.isAccessGranted(role.getId(), path))
+                            .map(it -> ACCESS_GRANTED)
+                            .findFirst()
+                            .orElse(ACCESS_DENIED);
+                })
+                .findFirst()
+                .orElse(ACCESS_ABSTAIN);
+    }
+
+    private static RoleConfig.Role role(RoleConfig.RoleId id, String uri) {
+        RoleConfig.Role role = new RoleConfig.Role();
+        role.setId(id);
+        role.setUri(uri);
+        return role;
+    }
+}
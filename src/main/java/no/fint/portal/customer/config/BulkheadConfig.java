@@ -0,0 +1,50 @@
+package no.fint.portal.customer.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "fint.portal.bulkhead")
+public class BulkheadConfig {
+
+    public static final int DEFAULT_LIMIT = 32;
+
+    /**
+     * Maximum concurrent calls per backend, keyed by backend name.
+     */
+    private Map<String, Integer> limits = new HashMap<>();
+
+    /**
+     * Sent as Retry-After with the 503 for a shed request.
+     */
+    private Duration retryAfter = Duration.ofSeconds(1);
+
+    /**
+     * Backends whose limit adapts to their latency, keyed by backend name. Their entry in {@link #limits} is the upper bound.
+     */
+    private Map<String, Adaptive> adaptive = new HashMap<>();
+
+    public int getLimit(String backend) {
+        return limits.getOrDefault(backend, DEFAULT_LIMIT);
+    }
+
+    @Data
+    public static class Adaptive {
+        private int initialLimit = 16;
+        private int minLimit = 2;
+        /**
+         * How much the recent latency may exceed the long term average before the limit is lowered.
+         */
+        private double tolerance = 1.5;
+        /**
+         * Weight of each new limit estimate, between 0 and 1.
+         */
+        private double smoothing = 0.2;
+    }
+}
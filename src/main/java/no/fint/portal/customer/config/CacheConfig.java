@@ -0,0 +1,39 @@
+package no.fint.portal.customer.config;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.Data;
+import org.springframework.boot.autoconfigure.cache.CacheManagerCustomizer;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.HashMap;
+import java.util.Map;
+
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "fint.portal.cache")
+public class CacheConfig {
+
+    public static final String DEFAULT_SPEC = "maximumSize=1000,expireAfterWrite=5m";
+
+    /**
+     * Caffeine specification per entity cache, keyed by cache name.
+     */
+    private Map<String, String> specs = new HashMap<>();
+
+    public String getSpec(String cacheName) {
+        return specs.getOrDefault(cacheName, DEFAULT_SPEC);
+    }
+
+    /**
+     * Spring caches with an entry in {@link #specs} get their own specification instead of {@code spring.cache.caffeine.spec}.
+     */
+    @Bean
+    CacheManagerCustomizer<CaffeineCacheManager> caffeineCacheManagerCustomizer() {
+        return cacheManager -> cacheManager.getCacheNames().stream()
+                .filter(specs::containsKey)
+                .forEach(name -> cacheManager.registerCustomCache(name, Caffeine.from(specs.get(name)).recordStats().build()));
+    }
+}
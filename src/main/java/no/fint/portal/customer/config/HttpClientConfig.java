@@ -0,0 +1,127 @@
+package no.fint.portal.customer.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.httpcomponents.PoolingHttpClientConnectionManagerMetricsBinder;
+import lombok.Data;
+import org.apache.http.HttpClientConnection;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.conn.ConnectionPoolTimeoutException;
+import org.apache.http.conn.ConnectionRequest;
+import org.apache.http.conn.routing.HttpRoute;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.HttpClientBuilder;
+import org.apache.http.impl.client.HttpClients;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.web.client.RestTemplateBuilderConfigurer;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.web.client.RestTemplateBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.http.client.ClientHttpRequestFactory;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+
+import java.time.Duration;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One pooled, keep-alive HTTP client behind every RestTemplate built from the {@link RestTemplateBuilder}.
+ * The events pass-through uses the same pool through a client that does not decode responses.
+ */
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "fint.portal.http")
+public class HttpClientConfig {
+
+    private static final String POOL_NAME = "outbound";
+
+    private int maxTotal = 100;
+    private int maxPerRoute = 20;
+    private Duration connectTimeout = Duration.ofSeconds(5);
+    private Duration readTimeout = Duration.ofSeconds(30);
+    /**
+     * Longest wait for a free connection from the pool.
+     */
+    private Duration connectionRequestTimeout = Duration.ofSeconds(5);
+    private Duration idleTimeout = Duration.ofSeconds(30);
+
+    @Bean(destroyMethod = "close")
+    PoolingHttpClientConnectionManager poolingHttpClientConnectionManager(MeterRegistry meterRegistry) {
+        final Timer waitTimer = Timer.builder("httpcomponents.httpclient.pool.wait")
+                .description("Time spent waiting for a pooled connection")
+                .tag("httpclient", POOL_NAME)
+                .register(meterRegistry);
+        final PoolingHttpClientConnectionManager connectionManager = new PoolingHttpClientConnectionManager() {
+            @Override
+            public ConnectionRequest requestConnection(HttpRoute route, Object state) {
+                final ConnectionRequest request = super.requestConnection(route, state);
+                return new ConnectionRequest() {
+                    @Override
+                    public HttpClientConnection get(long timeout, TimeUnit timeUnit) throws InterruptedException, ExecutionException, ConnectionPoolTimeoutException {
+                        final long start = System.nanoTime();
+                        try {
+                            return request.get(timeout, timeUnit);
+                        } finally {
+                            waitTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                        }
+                    }
+
+                    @Override
+                    public boolean cancel() {
+                        return request.cancel();
+                    }
+                };
+            }
+        };
+        connectionManager.setMaxTotal(maxTotal);
+        connectionManager.setDefaultMaxPerRoute(maxPerRoute);
+        connectionManager.setValidateAfterInactivity((int) Duration.ofSeconds(2).toMillis());
+        new PoolingHttpClientConnectionManagerMetricsBinder(connectionManager, POOL_NAME).bindTo(meterRegistry);
+        return connectionManager;
+    }
+
+    @Primary
+    @Bean(destroyMethod = "close")
+    CloseableHttpClient httpClient(PoolingHttpClientConnectionManager connectionManager) {
+        return clientBuilder(connectionManager)
+                .evictExpiredConnections()
+                .evictIdleConnections(idleTimeout.toMillis(), TimeUnit.MILLISECONDS)
+                .build();
+    }
+
+    /*
+     * Shares the pool with the client above, but leaves content compression to the caller, so gzip responses
+     * can be passed through undecoded. The pool is closed and evicted by the client above.
+     */
+    @Bean(destroyMethod = "close")
+    CloseableHttpClient passThroughHttpClient(PoolingHttpClientConnectionManager connectionManager) {
+        return clientBuilder(connectionManager)
+                .setConnectionManagerShared(true)
+                .disableContentCompression()
+                .build();
+    }
+
+    @Bean
+    ClientHttpRequestFactory passThroughRequestFactory(@Qualifier("passThroughHttpClient") CloseableHttpClient passThroughHttpClient) {
+        return new HttpComponentsClientHttpRequestFactory(passThroughHttpClient);
+    }
+
+    private HttpClientBuilder clientBuilder(PoolingHttpClientConnectionManager connectionManager) {
+        return HttpClients.custom()
+                .setConnectionManager(connectionManager)
+                .setDefaultRequestConfig(RequestConfig.custom()
+                        .setConnectTimeout((int) connectTimeout.toMillis())
+                        .setSocketTimeout((int) readTimeout.toMillis())
+                        .setConnectionRequestTimeout((int) connectionRequestTimeout.toMillis())
+                        .build());
+    }
+
+    @Bean
+    RestTemplateBuilder restTemplateBuilder(RestTemplateBuilderConfigurer configurer, @Qualifier("httpClient") CloseableHttpClient httpClient) {
+        return configurer.configure(new RestTemplateBuilder())
+                .requestFactory(() -> new HttpComponentsClientHttpRequestFactory(httpClient));
+    }
+}
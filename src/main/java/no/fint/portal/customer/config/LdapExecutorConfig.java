@@ -0,0 +1,93 @@
+package no.fint.portal.customer.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import lombok.Data;
+import no.fint.portal.customer.service.Bulkhead;
+import no.fint.portal.customer.service.Bulkheads;
+import no.fint.portal.customer.service.StaleReads;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.task.TaskExecutorBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.time.Duration;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Bounded pool running the LDAP work of asynchronous read endpoints, so servlet threads stay free while the directory is slow.
+ * Requests beyond {@link #poolSize} running and {@link #queueCapacity} waiting are shed by the LDAP bulkhead.
+ * <p>
+ * Lookups that write endpoints resolve concurrently have a small pool of their own, so they neither wait behind
+ * nor get shed with queued reads.
+ */
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "fint.portal.ldap-executor")
+public class LdapExecutorConfig {
+
+    private int poolSize = 16;
+    private int queueCapacity = 200;
+    private Duration keepAlive = Duration.ofSeconds(60);
+    private int lookupPoolSize = 4;
+
+    /*
+     * Published as executor.queued, executor.active, executor.pool.size etc. tagged name=ldap.
+     * Tasks carry the stale flag of the submitting thread, never its request.
+     */
+    @Bean(destroyMethod = "shutdown")
+    ExecutorService ldapExecutor(MeterRegistry meterRegistry, Bulkheads bulkheads) {
+        Bulkhead bulkhead = bulkheads.get(Bulkheads.LDAP);
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(poolSize, poolSize,
+                keepAlive.toMillis(), TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                new CustomizableThreadFactory("ldap-"),
+                (task, pool) -> {
+                    throw bulkhead.shed();
+                }) {
+            @Override
+            public void execute(Runnable command) {
+                super.execute(StaleReads.propagate(command));
+            }
+        };
+        executor.allowCoreThreadTimeOut(true);
+        return ExecutorServiceMetrics.monitor(meterRegistry, executor, "ldap");
+    }
+
+    /*
+     * Published tagged name=lookup. Without a free thread the lookup runs on the calling thread instead.
+     * Like the LDAP pool, tasks carry the stale flag of the submitting thread.
+     */
+    @Bean(destroyMethod = "shutdown")
+    ExecutorService lookupExecutor(MeterRegistry meterRegistry) {
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(lookupPoolSize, lookupPoolSize,
+                keepAlive.toMillis(), TimeUnit.MILLISECONDS,
+                new SynchronousQueue<>(),
+                new CustomizableThreadFactory("lookup-"),
+                new ThreadPoolExecutor.CallerRunsPolicy()) {
+            @Override
+            public void execute(Runnable command) {
+                super.execute(StaleReads.propagate(command));
+            }
+        };
+        executor.allowCoreThreadTimeOut(true);
+        return ExecutorServiceMetrics.monitor(meterRegistry, executor, "lookup");
+    }
+
+    /*
+     * Declaring an executor makes Spring Boot back off from its own, which Spring MVC still needs for
+     * StreamingResponseBody and Callable return values.
+     */
+    @Lazy
+    @Bean(name = {"applicationTaskExecutor", "taskExecutor"})
+    ThreadPoolTaskExecutor applicationTaskExecutor(TaskExecutorBuilder builder) {
+        return builder.build();
+    }
+}
@@ -3,19 +3,21 @@ package no.fint.portal.customer.controller;
 import io.swagger.annotations.Api;
 import io.swagger.annotations.ApiOperation;
 import lombok.extern.slf4j.Slf4j;
+import no.fint.portal.customer.service.ConcurrentLookup;
 import no.fint.portal.customer.service.PortalApiService;
 import no.fint.portal.exceptions.CreateEntityMismatchException;
 import no.fint.portal.exceptions.UpdateEntityMismatchException;
 import no.fint.portal.model.access.AccessPackage;
-import no.fint.portal.model.access.AccessService;
-import no.fint.portal.model.client.Client;
 import no.fint.portal.model.organisation.Organisation;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.http.CacheControl;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
 
 @Slf4j
 @RestController
@@ -26,19 +28,24 @@ public class AccessController {
 
     private final PortalApiService portalApiService;
 
-    private final AccessService accessService;
+    private final ExecutorService ldapExecutor;
 
-    public AccessController(PortalApiService portalApiService, AccessService accessService) {
+    private final ConcurrentLookup concurrentLookup;
+
+    public AccessController(PortalApiService portalApiService, @Qualifier("ldapExecutor") ExecutorService ldapExecutor, ConcurrentLookup concurrentLookup) {
         this.portalApiService = portalApiService;
-        this.accessService = accessService;
+        this.ldapExecutor = ldapExecutor;
+        this.concurrentLookup = concurrentLookup;
     }
 
     @ApiOperation("Get all Accesses")
     @GetMapping("/")
-    public ResponseEntity<List<AccessPackage>> getAccesses(@PathVariable("orgName") String orgName) {
-        Organisation organisation = portalApiService.getOrganisation(orgName);
-        List<AccessPackage> accessPackages = portalApiService.getAccesses(organisation);
-        return ResponseEntity.ok().cacheControl(CacheControl.noStore()).body(accessPackages);
+    public CompletableFuture<ResponseEntity<List<AccessPackage>>> getAccesses(@PathVariable("orgName") String orgName) {
+        return CompletableFuture.supplyAsync(() -> {
+            Organisation organisation = portalApiService.getOrganisation(orgName);
+            List<AccessPackage> accessPackages = portalApiService.getAccesses(organisation);
+            return ResponseEntity.ok().cacheControl(CacheControl.noStore()).body(accessPackages);
+        }, ldapExecutor);
     }
 
     @ApiOperation("Create Access")
@@ -47,7 +54,7 @@ public class AccessController {
                                                    @RequestBody AccessPackage accessPackage) {
         Organisation organisation = portalApiService.getOrganisation(orgName);
 
-        if (!accessService.addAccess(accessPackage, organisation))
+        if (!portalApiService.addAccess(organisation, accessPackage))
             throw new CreateEntityMismatchException(accessPackage.getName());
 
         return ResponseEntity.created(ServletUriComponentsBuilder.fromCurrentRequestUri().scheme(null).pathSegment(accessPackage.getName()).build().toUri()).cacheControl(CacheControl.noStore()).body(accessPackage);
@@ -55,11 +62,13 @@ public class AccessController {
 
     @ApiOperation("Get Access by Name")
     @GetMapping("/{accessId}")
-    public ResponseEntity<AccessPackage> getAccessByName(@PathVariable String orgName,
-                                                         @PathVariable String accessId) {
-        Organisation organisation = portalApiService.getOrganisation(orgName);
-        AccessPackage accessPackage = portalApiService.getAccess(organisation, accessId);
-        return ResponseEntity.ok().cacheControl(CacheControl.noStore()).body(accessPackage);
+    public CompletableFuture<ResponseEntity<AccessPackage>> getAccessByName(@PathVariable String orgName,
+                                                                            @PathVariable String accessId) {
+        return CompletableFuture.supplyAsync(() -> {
+            Organisation organisation = portalApiService.getOrganisation(orgName);
+            AccessPackage accessPackage = portalApiService.getAccess(organisation, accessId);
+            return ResponseEntity.ok().cacheControl(CacheControl.noStore()).body(accessPackage);
+        }, ldapExecutor);
     }
 
     @ApiOperation("Update Access")
@@ -69,7 +78,7 @@ public class AccessController {
                                                       @RequestBody AccessPackage accessPackage) {
         if (!accessId.equals(accessPackage.getName())) throw new UpdateEntityMismatchException(accessId);
         Organisation organisation = portalApiService.getOrganisation(orgName);
-        AccessPackage original = portalApiService.getAccess(organisation, accessId);
+        AccessPackage original = portalApiService.getAccessForUpdate(organisation, accessId);
 
         if (accessPackage.getComponents() != null) {
             original.setComponents(accessPackage.getComponents());
@@ -87,7 +96,7 @@ public class AccessController {
             original.setRead(accessPackage.getRead());
         }
 
-        if (!accessService.updateAccess(original)) throw new UpdateEntityMismatchException(accessId);
+        if (!portalApiService.updateAccess(organisation, original)) throw new UpdateEntityMismatchException(accessId);
 
         return ResponseEntity.ok().cacheControl(CacheControl.noStore()).body(accessPackage);
     }
@@ -99,7 +108,7 @@ public class AccessController {
         Organisation organisation = portalApiService.getOrganisation(orgName);
         AccessPackage accessPackage = portalApiService.getAccess(organisation, accessId);
 
-        accessService.removeAccess(accessPackage);
+        portalApiService.removeAccess(organisation, accessPackage);
 
         return ResponseEntity.noContent().cacheControl(CacheControl.noStore()).build();
     }
@@ -110,10 +119,10 @@ public class AccessController {
                                                    @PathVariable String accessId,
                                                    @PathVariable String clientName) {
         Organisation organisation = portalApiService.getOrganisation(orgName);
-        AccessPackage accessPackage = portalApiService.getAccess(organisation, accessId);
-        Client client = portalApiService.getClient(organisation, clientName);
-
-        accessService.linkClientToAccess(accessPackage, client);
+        concurrentLookup.resolve(
+                () -> portalApiService.getAccessForUpdate(organisation, accessId),
+                () -> portalApiService.getClientForUpdate(organisation, clientName),
+                (accessPackage, client) -> portalApiService.linkClientToAccess(organisation, accessPackage, client));
 
         return ResponseEntity.noContent().cacheControl(CacheControl.noStore()).build();
     }
@@ -124,10 +133,10 @@ public class AccessController {
                                                        @PathVariable String accessId,
                                                        @PathVariable String clientName) {
         Organisation organisation = portalApiService.getOrganisation(orgName);
-        AccessPackage accessPackage = portalApiService.getAccess(organisation, accessId);
-        Client client = portalApiService.getClient(organisation, clientName);
-
-        accessService.unlinkClientFromAccess(accessPackage, client);
+        concurrentLookup.resolve(
+                () -> portalApiService.getAccessForUpdate(organisation, accessId),
+                () -> portalApiService.getClientForUpdate(organisation, clientName),
+                (accessPackage, client) -> portalApiService.unlinkClientFromAccess(organisation, accessPackage, client));
 
         return ResponseEntity.noContent().cacheControl(CacheControl.noStore()).build();
     }
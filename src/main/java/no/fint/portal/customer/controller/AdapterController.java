@@ -10,8 +10,8 @@ import no.fint.portal.exceptions.EntityNotFoundException;
 import no.fint.portal.exceptions.UpdateEntityMismatchException;
 import no.fint.portal.model.ErrorResponse;
 import no.fint.portal.model.adapter.Adapter;
-import no.fint.portal.model.adapter.AdapterService;
 import no.fint.portal.model.organisation.Organisation;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.http.CacheControl;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
@@ -24,6 +24,8 @@ import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 import java.net.UnknownHostException;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
 
 @Slf4j
 @RestController
@@ -35,11 +37,11 @@ public class AdapterController {
     final
     PortalApiService portalApiService;
 
-    private final AdapterService adapterService;
+    private final ExecutorService ldapExecutor;
 
-    public AdapterController(PortalApiService portalApiService, AdapterService adapterService) {
+    public AdapterController(PortalApiService portalApiService, @Qualifier("ldapExecutor") ExecutorService ldapExecutor) {
         this.portalApiService = portalApiService;
-        this.adapterService = adapterService;
+        this.ldapExecutor = ldapExecutor;
     }
 
     @ApiOperation("Add adapter")
@@ -52,9 +54,9 @@ public class AdapterController {
 
         Organisation organisation = portalApiService.getOrganisation(orgName);
 
-        Optional<Adapter> optionalAdapter = adapterService.getAdapter(adapter.getName(), orgName);
+        Optional<Adapter> optionalAdapter = portalApiService.findAdapter(organisation, adapter.getName());
         if (!optionalAdapter.isPresent()) {
-            if (adapterService.addAdapter(adapter, organisation)) {
+            if (portalApiService.addAdapter(organisation, adapter)) {
                 //return ResponseEntity.ok().body(adapter);
                 return ResponseEntity.status(HttpStatus.CREATED).cacheControl(CacheControl.noStore()).body(adapter);
             }
@@ -77,7 +79,7 @@ public class AdapterController {
                                                  @RequestBody final Adapter adapter) {
 
         Organisation organisation = portalApiService.getOrganisation(orgName);
-        Adapter original = portalApiService.getAdapter(organisation, adapterName);
+        Adapter original = portalApiService.getAdapterForUpdate(organisation, adapterName);
 
         if (!adapterName.equals(adapter.getName())) {
             throw new UpdateEntityMismatchException(
@@ -92,7 +94,7 @@ public class AdapterController {
         if (adapter.getShortDescription() != null)
             original.setShortDescription(adapter.getShortDescription());
 
-        if (!adapterService.updateAdapter(original)) {
+        if (!portalApiService.updateAdapter(organisation, original)) {
             throw new EntityNotFoundException(String.format("Could not update adapter: %s", adapterName));
         }
 
@@ -111,8 +113,8 @@ public class AdapterController {
 
         Organisation organisation = portalApiService.getOrganisation(orgName);
 
-        Adapter adapter = portalApiService.getAdapter(organisation, adapterName);
-        adapterService.resetAdapterPassword(adapter, newPassword);
+        Adapter adapter = portalApiService.getAdapterForUpdate(organisation, adapterName);
+        portalApiService.resetAdapterPassword(organisation, adapter, newPassword);
         return ResponseEntity.ok().cacheControl(CacheControl.noStore()).body(adapter);
     }
 
@@ -120,12 +122,14 @@ public class AdapterController {
     @RequestMapping(
             method = RequestMethod.GET
     )
-    public ResponseEntity<List<Adapter>> getAllAdapters(@PathVariable("orgName") final String orgName) {
-        Organisation organisation = portalApiService.getOrganisation(orgName);
+    public CompletableFuture<ResponseEntity<List<Adapter>>> getAllAdapters(@PathVariable("orgName") final String orgName) {
+        return CompletableFuture.supplyAsync(() -> {
+            Organisation organisation = portalApiService.getOrganisation(orgName);
 
-        List<Adapter> adapters = portalApiService.getAdapters(organisation);
+            List<Adapter> adapters = portalApiService.getAdapters(organisation);
 
-        return ResponseEntity.ok().cacheControl(CacheControl.noStore()).body(adapters);
+            return ResponseEntity.ok().cacheControl(CacheControl.noStore()).body(adapters);
+        }, ldapExecutor);
     }
 
     @ApiOperation("Get adapter")
@@ -133,12 +137,14 @@ public class AdapterController {
             method = RequestMethod.GET,
             value = "/{adapterName}"
     )
-    public ResponseEntity<Adapter> getAdapter(@PathVariable("orgName") final String orgName,
-                                              @PathVariable final String adapterName) {
-        Organisation organisation = portalApiService.getOrganisation(orgName);
-
-        Adapter adapter = portalApiService.getAdapter(organisation, adapterName);
-        return ResponseEntity.ok().cacheControl(CacheControl.noStore()).body(adapter);
+    public CompletableFuture<ResponseEntity<Adapter>> getAdapter(@PathVariable("orgName") final String orgName,
+                                                                 @PathVariable final String adapterName) {
+        return CompletableFuture.supplyAsync(() -> {
+            Organisation organisation = portalApiService.getOrganisation(orgName);
+
+            Adapter adapter = portalApiService.getAdapter(organisation, adapterName);
+            return ResponseEntity.ok().cacheControl(CacheControl.noStore()).body(adapter);
+        }, ldapExecutor);
     }
 
     @ApiOperation("Get Adapter OpenID Secret")
@@ -146,12 +152,14 @@ public class AdapterController {
             method = RequestMethod.GET,
             value = "/{adapterName}/secret"
     )
-    public ResponseEntity<String> getAdapterSecret(@PathVariable("orgName") final String orgName,
-                                                   @PathVariable final String adapterName) {
-        Organisation organisation = portalApiService.getOrganisation(orgName);
-        Adapter adapter = portalApiService.getAdapter(organisation, adapterName);
-
-        return ResponseEntity.ok().cacheControl(CacheControl.noStore()).body(adapterService.getAdapterSecret(adapter));
+    public CompletableFuture<ResponseEntity<String>> getAdapterSecret(@PathVariable("orgName") final String orgName,
+                                                                      @PathVariable final String adapterName) {
+        return CompletableFuture.supplyAsync(() -> {
+            Organisation organisation = portalApiService.getOrganisation(orgName);
+            Adapter adapter = portalApiService.getAdapter(organisation, adapterName);
+
+            return ResponseEntity.ok().cacheControl(CacheControl.noStore()).body(portalApiService.getAdapterSecret(adapter));
+        }, ldapExecutor);
     }
 
     @ApiOperation("Delete adapter")
@@ -163,7 +171,7 @@ public class AdapterController {
         Organisation organisation = portalApiService.getOrganisation(orgName);
         Adapter adapter = portalApiService.getAdapter(organisation, adapterName);
 
-        adapterService.deleteAdapter(adapter);
+        portalApiService.deleteAdapter(organisation, adapter);
         return ResponseEntity.noContent().cacheControl(CacheControl.noStore()).build();
     }
 
@@ -3,20 +3,21 @@ package no.fint.portal.customer.controller;
 import io.swagger.annotations.Api;
 import io.swagger.annotations.ApiOperation;
 import lombok.extern.slf4j.Slf4j;
+import no.fint.portal.customer.service.ConcurrentLookup;
 import no.fint.portal.customer.service.PortalApiService;
 import no.fint.portal.exceptions.CreateEntityMismatchException;
 import no.fint.portal.exceptions.UpdateEntityMismatchException;
-import no.fint.portal.model.adapter.Adapter;
 import no.fint.portal.model.asset.Asset;
-import no.fint.portal.model.asset.AssetService;
-import no.fint.portal.model.client.Client;
 import no.fint.portal.model.organisation.Organisation;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.http.CacheControl;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
 
 @Slf4j
 @RestController
@@ -28,29 +29,35 @@ public class AssetController {
     final
     PortalApiService portalApiService;
 
-    private final AssetService assetService;
+    private final ExecutorService ldapExecutor;
 
-    public AssetController(PortalApiService portalApiService, AssetService assetService) {
+    private final ConcurrentLookup concurrentLookup;
+
+    public AssetController(PortalApiService portalApiService, @Qualifier("ldapExecutor") ExecutorService ldapExecutor, ConcurrentLookup concurrentLookup) {
         this.portalApiService = portalApiService;
-        this.assetService = assetService;
+        this.ldapExecutor = ldapExecutor;
+        this.concurrentLookup = concurrentLookup;
     }
 
     @ApiOperation("Get all Assets")
     @GetMapping("/")
-    public ResponseEntity<List<Asset>> getAssets(@PathVariable("orgName") String orgName) {
-        Organisation organisation = portalApiService.getOrganisation(orgName);
-        List<Asset> assets = portalApiService.getAssets(organisation);
-        return ResponseEntity.ok().cacheControl(CacheControl.noStore()).body(assets);
+    public CompletableFuture<ResponseEntity<List<Asset>>> getAssets(@PathVariable("orgName") String orgName) {
+        return CompletableFuture.supplyAsync(() -> {
+            Organisation organisation = portalApiService.getOrganisation(orgName);
+            List<Asset> assets = portalApiService.getAssets(organisation);
+            return ResponseEntity.ok().cacheControl(CacheControl.noStore()).body(assets);
+        }, ldapExecutor);
     }
 
     @ApiOperation("Get Primary Asset ID")
     @GetMapping("/primary")
-    public ResponseEntity<Asset> getPrimaryAsset(@PathVariable("orgName") String orgName) {
-        Organisation organisation = portalApiService.getOrganisation(orgName);
-        Asset primaryAsset = assetService.getPrimaryAsset(organisation);
-
-        return ResponseEntity.ok().cacheControl(CacheControl.noStore()).body(primaryAsset);
+    public CompletableFuture<ResponseEntity<Asset>> getPrimaryAsset(@PathVariable("orgName") String orgName) {
+        return CompletableFuture.supplyAsync(() -> {
+            Organisation organisation = portalApiService.getOrganisation(orgName);
+            Asset primaryAsset = portalApiService.getPrimaryAsset(organisation);
 
+            return ResponseEntity.ok().cacheControl(CacheControl.noStore()).body(primaryAsset);
+        }, ldapExecutor);
     }
 
     @ApiOperation("Create Asset")
@@ -59,22 +66,24 @@ public class AssetController {
                                           @RequestBody Asset asset) {
         Organisation organisation = portalApiService.getOrganisation(orgName);
 
-        Asset primaryAsset = assetService.getPrimaryAsset(organisation);
+        Asset primaryAsset = portalApiService.getPrimaryAsset(organisation);
         // TODO: 31/07/2018 This should be moved to the portal-api
         asset.setAssetId(String.format("%s.%s", asset.getAssetId(), primaryAsset.getAssetId()));
 
-        if (!assetService.addAsset(asset, organisation)) throw new CreateEntityMismatchException(asset.getAssetId());
+        if (!portalApiService.addAsset(organisation, asset)) throw new CreateEntityMismatchException(asset.getAssetId());
 
         return ResponseEntity.created(ServletUriComponentsBuilder.fromCurrentRequestUri().scheme(null).pathSegment(asset.getName()).build().toUri()).cacheControl(CacheControl.noStore()).build();
     }
 
     @ApiOperation("Get Asset by Name")
     @GetMapping("/{assetId}")
-    public ResponseEntity<Asset> getAssetByName(@PathVariable String orgName,
-                                                @PathVariable String assetId) {
-        Organisation organisation = portalApiService.getOrganisation(orgName);
-        Asset asset = portalApiService.getAsset(organisation, assetId);
-        return ResponseEntity.ok().cacheControl(CacheControl.noStore()).body(asset);
+    public CompletableFuture<ResponseEntity<Asset>> getAssetByName(@PathVariable String orgName,
+                                                                   @PathVariable String assetId) {
+        return CompletableFuture.supplyAsync(() -> {
+            Organisation organisation = portalApiService.getOrganisation(orgName);
+            Asset asset = portalApiService.getAsset(organisation, assetId);
+            return ResponseEntity.ok().cacheControl(CacheControl.noStore()).body(asset);
+        }, ldapExecutor);
     }
 
     @ApiOperation("Update Asset")
@@ -83,13 +92,13 @@ public class AssetController {
                                              @PathVariable String assetId,
                                              @RequestBody Asset asset) {
         Organisation organisation = portalApiService.getOrganisation(orgName);
-        Asset original = portalApiService.getAsset(organisation, assetId);
+        Asset original = portalApiService.getAssetForUpdate(organisation, assetId);
         if (!assetId.equals(asset.getName())) throw new UpdateEntityMismatchException(assetId);
 
         if (asset.getDescription() != null)
             original.setDescription(asset.getDescription());
 
-        assetService.updateAsset(original);
+        portalApiService.updateAsset(organisation, original);
 
         return ResponseEntity.ok().cacheControl(CacheControl.noStore()).body(original);
     }
@@ -101,7 +110,7 @@ public class AssetController {
         Organisation organisation = portalApiService.getOrganisation(orgName);
         Asset asset = portalApiService.getAsset(organisation, assetId);
 
-        assetService.removeAsset(asset);
+        portalApiService.removeAsset(organisation, asset);
 
         return ResponseEntity.noContent().cacheControl(CacheControl.noStore()).build();
     }
@@ -112,10 +121,10 @@ public class AssetController {
                                                   @PathVariable String assetId,
                                                   @PathVariable String clientName) {
         Organisation organisation = portalApiService.getOrganisation(orgName);
-        Asset asset = portalApiService.getAsset(organisation, assetId);
-        Client client = portalApiService.getClient(organisation, clientName);
-
-        assetService.linkClientToAsset(asset, client);
+        concurrentLookup.resolve(
+                () -> portalApiService.getAssetForUpdate(organisation, assetId),
+                () -> portalApiService.getClientForUpdate(organisation, clientName),
+                (asset, client) -> portalApiService.linkClientToAsset(organisation, asset, client));
 
         return ResponseEntity.noContent().cacheControl(CacheControl.noStore()).build();
     }
@@ -126,10 +135,10 @@ public class AssetController {
                                                       @PathVariable String assetId,
                                                       @PathVariable String clientName) {
         Organisation organisation = portalApiService.getOrganisation(orgName);
-        Asset asset = portalApiService.getAsset(organisation, assetId);
-        Client client = portalApiService.getClient(organisation, clientName);
-
-        assetService.unlinkClientFromAsset(asset, client);
+        concurrentLookup.resolve(
+                () -> portalApiService.getAssetForUpdate(organisation, assetId),
+                () -> portalApiService.getClientForUpdate(organisation, clientName),
+                (asset, client) -> portalApiService.unlinkClientFromAsset(organisation, asset, client));
 
         return ResponseEntity.noContent().cacheControl(CacheControl.noStore()).build();
     }
@@ -140,10 +149,10 @@ public class AssetController {
                                                    @PathVariable String assetId,
                                                    @PathVariable String adapterName) {
         Organisation organisation = portalApiService.getOrganisation(orgName);
-        Asset asset = portalApiService.getAsset(organisation, assetId);
-        Adapter adapter = portalApiService.getAdapter(organisation, adapterName);
-
-        assetService.linkAdapterToAsset(asset, adapter);
+        concurrentLookup.resolve(
+                () -> portalApiService.getAssetForUpdate(organisation, assetId),
+                () -> portalApiService.getAdapterForUpdate(organisation, adapterName),
+                (asset, adapter) -> portalApiService.linkAdapterToAsset(organisation, asset, adapter));
 
         return ResponseEntity.noContent().cacheControl(CacheControl.noStore()).build();
     }
@@ -154,10 +163,10 @@ public class AssetController {
                                                        @PathVariable String assetId,
                                                        @PathVariable String adapterName) {
         Organisation organisation = portalApiService.getOrganisation(orgName);
-        Asset asset = portalApiService.getAsset(organisation, assetId);
-        Adapter adapter = portalApiService.getAdapter(organisation, adapterName);
-
-        assetService.unlinkAdapterFromAsset(asset, adapter);
+        concurrentLookup.resolve(
+                () -> portalApiService.getAssetForUpdate(organisation, assetId),
+                () -> portalApiService.getAdapterForUpdate(organisation, adapterName),
+                (asset, adapter) -> portalApiService.unlinkAdapterFromAsset(organisation, asset, adapter));
 
         return ResponseEntity.noContent().cacheControl(CacheControl.noStore()).build();
     }
@@ -10,9 +10,9 @@ import no.fint.portal.exceptions.EntityNotFoundException;
 import no.fint.portal.exceptions.UpdateEntityMismatchException;
 import no.fint.portal.model.ErrorResponse;
 import no.fint.portal.model.client.Client;
-import no.fint.portal.model.client.ClientService;
 import no.fint.portal.model.organisation.Organisation;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.http.CacheControl;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
@@ -24,6 +24,8 @@ import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 import java.net.UnknownHostException;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
 
 @Slf4j
 @RestController
@@ -36,7 +38,8 @@ public class ClientController {
     PortalApiService portalApiService;
 
     @Autowired
-    private ClientService clientService;
+    @Qualifier("ldapExecutor")
+    private ExecutorService ldapExecutor;
 
 
     @ApiOperation("Add client")
@@ -47,11 +50,11 @@ public class ClientController {
                                             @RequestBody final Client client) {
 
         Organisation organisation = portalApiService.getOrganisation(orgName);
-        Optional<Client> optionalClient = clientService.getClient(client.getName(), orgName);
+        Optional<Client> optionalClient = portalApiService.findClient(organisation, client.getName());
 
 
         if (optionalClient.isEmpty()) {
-            if (clientService.addClient(client, organisation)) {
+            if (portalApiService.addClient(organisation, client)) {
                 return ResponseEntity.status(HttpStatus.CREATED).cacheControl(CacheControl.noStore()).body(client);
 
             }
@@ -73,7 +76,7 @@ public class ClientController {
                                                @RequestBody final Client client) {
 
         Organisation organisation = portalApiService.getOrganisation(orgName);
-        Client original = portalApiService.getClient(organisation, clientName);
+        Client original = portalApiService.getClientForUpdate(organisation, clientName);
 
         if (!clientName.equals(client.getName())) {
             throw new UpdateEntityMismatchException(
@@ -88,7 +91,7 @@ public class ClientController {
         if (client.getShortDescription() != null)
             original.setShortDescription(client.getShortDescription());
 
-        if (!clientService.updateClient(original)) {
+        if (!portalApiService.updateClient(organisation, original)) {
             throw new EntityNotFoundException(String.format("Could not update client: %s", clientName));
         }
 
@@ -104,31 +107,35 @@ public class ClientController {
                                                       @PathVariable final String clientName,
                                                       @RequestBody String newPassword) {
         Organisation organisation = portalApiService.getOrganisation(orgName);
-        Client client = portalApiService.getClient(organisation, clientName);
+        Client client = portalApiService.getClientForUpdate(organisation, clientName);
 
-        clientService.resetClientPassword(client, newPassword);
+        portalApiService.resetClientPassword(organisation, client, newPassword);
         return ResponseEntity.ok().cacheControl(CacheControl.noStore()).body(client);
     }
 
     @ApiOperation("Get all clients")
     @RequestMapping(method = RequestMethod.GET)
-    public ResponseEntity<List<Client>> getAllClients(@PathVariable("orgName") final String orgName) {
-        Organisation organisation = portalApiService.getOrganisation(orgName);
+    public CompletableFuture<ResponseEntity<List<Client>>> getAllClients(@PathVariable("orgName") final String orgName) {
+        return CompletableFuture.supplyAsync(() -> {
+            Organisation organisation = portalApiService.getOrganisation(orgName);
 
-        List<Client> list = portalApiService.getClients(organisation);
-        return ResponseEntity.ok().cacheControl(CacheControl.noStore()).body(list);
+            List<Client> list = portalApiService.getClients(organisation);
+            return ResponseEntity.ok().cacheControl(CacheControl.noStore()).body(list);
+        }, ldapExecutor);
     }
 
     @ApiOperation("Get client")
     @RequestMapping(method = RequestMethod.GET,
             value = "/{clientName}"
     )
-    public ResponseEntity<Client> getClient(@PathVariable("orgName") final String orgName,
-                                            @PathVariable final String clientName) {
-        Organisation organisation = portalApiService.getOrganisation(orgName);
-        Client client = portalApiService.getClient(organisation, clientName);
-
-        return ResponseEntity.ok().cacheControl(CacheControl.noStore()).body(client);
+    public CompletableFuture<ResponseEntity<Client>> getClient(@PathVariable("orgName") final String orgName,
+                                                               @PathVariable final String clientName) {
+        return CompletableFuture.supplyAsync(() -> {
+            Organisation organisation = portalApiService.getOrganisation(orgName);
+            Client client = portalApiService.getClient(organisation, clientName);
+
+            return ResponseEntity.ok().cacheControl(CacheControl.noStore()).body(client);
+        }, ldapExecutor);
     }
 
     @ApiOperation("Get Client OpenID Secret")
@@ -136,12 +143,14 @@ public class ClientController {
             method = RequestMethod.GET,
             value = "/{clientName}/secret"
     )
-    public ResponseEntity<String> getClientSecret(@PathVariable("orgName") final String orgName,
-                                                  @PathVariable final String clientName) {
-        Organisation organisation = portalApiService.getOrganisation(orgName);
-        Client client = portalApiService.getClient(organisation, clientName);
-
-        return ResponseEntity.ok().cacheControl(CacheControl.noStore()).body(clientService.getClientSecret(client));
+    public CompletableFuture<ResponseEntity<String>> getClientSecret(@PathVariable("orgName") final String orgName,
+                                                                     @PathVariable final String clientName) {
+        return CompletableFuture.supplyAsync(() -> {
+            Organisation organisation = portalApiService.getOrganisation(orgName);
+            Client client = portalApiService.getClient(organisation, clientName);
+
+            return ResponseEntity.ok().cacheControl(CacheControl.noStore()).body(portalApiService.getClientSecret(client));
+        }, ldapExecutor);
     }
 
 
@@ -154,7 +163,7 @@ public class ClientController {
         Organisation organisation = portalApiService.getOrganisation(orgName);
         Client client = portalApiService.getClient(organisation, clientName);
 
-        clientService.deleteClient(client);
+        portalApiService.deleteClient(organisation, client);
         return ResponseEntity.noContent().cacheControl(CacheControl.noStore()).build();
     }
 
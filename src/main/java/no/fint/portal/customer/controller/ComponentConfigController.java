@@ -2,20 +2,17 @@ package no.fint.portal.customer.controller;
 
 import io.swagger.annotations.Api;
 import lombok.extern.slf4j.Slf4j;
+import no.fint.portal.customer.service.ComponentConfigurationService;
 import no.fint.portal.model.ComponentConfiguration;
-import org.springframework.beans.factory.annotation.Value;
-import org.springframework.core.ParameterizedTypeReference;
-import org.springframework.http.HttpMethod;
+import org.springframework.http.CacheControl;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.CrossOrigin;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
-import org.springframework.web.client.RestTemplate;
+import org.springframework.web.context.request.WebRequest;
 
 import java.util.List;
-import java.util.Objects;
-import java.util.stream.Collectors;
 
 @Slf4j
 @RestController
@@ -24,30 +21,22 @@ import java.util.stream.Collectors;
 @RequestMapping(value = "/api/components/configurations")
 
 public class ComponentConfigController {
-    private final RestTemplate restTemplate;
-    private final String rootUri;
+    private final ComponentConfigurationService componentConfigurationService;
 
-    public ComponentConfigController(
-            RestTemplate restTemplate,
-            @Value("${fint.portal.admin.uri}") String rootUri) {
-        this.restTemplate = restTemplate;
-        this.rootUri = rootUri;
+    public ComponentConfigController(ComponentConfigurationService componentConfigurationService) {
+        this.componentConfigurationService = componentConfigurationService;
     }
 
     @GetMapping
-    public ResponseEntity<List<ComponentConfiguration>> getComponentConfigurations() {
-        List<ComponentConfiguration> componentConfigurationList = restTemplate
-                .exchange(
-                        rootUri + "/api/components/configurations",
-                        HttpMethod.GET,
-                        null,
-                        new ParameterizedTypeReference<List<ComponentConfiguration>>() {
-                        }
-                ).getBody();
-
-        return ResponseEntity.ok(Objects.requireNonNull(componentConfigurationList).stream()
-                .filter(ComponentConfiguration::isCore)
-                .collect(Collectors.toList()));
+    public ResponseEntity<List<ComponentConfiguration>> getComponentConfigurations(WebRequest request) {
+        final ComponentConfigurationService.Snapshot snapshot = componentConfigurationService.getSnapshot();
+        if (request.checkNotModified(snapshot.getETag())) {
+            return null;
+        }
+        return ResponseEntity.ok()
+                .cacheControl(CacheControl.noCache())
+                .eTag(snapshot.getETag())
+                .body(snapshot.getConfigurations());
     }
 
 }
@@ -4,15 +4,16 @@ package no.fint.portal.customer.controller;
 import io.swagger.annotations.Api;
 import io.swagger.annotations.ApiOperation;
 import lombok.extern.slf4j.Slf4j;
+import no.fint.portal.customer.service.ComponentCatalogueEntry;
+import no.fint.portal.customer.service.ComponentCatalogueService;
+import no.fint.portal.customer.service.ComponentStatus;
+import no.fint.portal.customer.service.ConcurrentLookup;
 import no.fint.portal.customer.service.PortalApiService;
 import no.fint.portal.exceptions.EntityFoundException;
 import no.fint.portal.exceptions.EntityNotFoundException;
 import no.fint.portal.exceptions.UpdateEntityMismatchException;
 import no.fint.portal.model.ErrorResponse;
-import no.fint.portal.model.adapter.Adapter;
-import no.fint.portal.model.client.Client;
 import no.fint.portal.model.component.Component;
-import no.fint.portal.model.component.ComponentService;
 import no.fint.portal.model.organisation.Organisation;
 import org.springframework.http.CacheControl;
 import org.springframework.http.HttpStatus;
@@ -22,7 +23,6 @@ import org.springframework.ldap.NameNotFoundException;
 import org.springframework.web.bind.annotation.*;
 
 import java.net.UnknownHostException;
-import java.util.ArrayList;
 import java.util.List;
 
 @Slf4j
@@ -35,11 +35,14 @@ public class ComponentController {
     final
     PortalApiService portalApiService;
 
-    private final ComponentService componentService;
+    private final ComponentCatalogueService componentCatalogueService;
 
-    public ComponentController(PortalApiService portalApiService, ComponentService componentService) {
+    private final ConcurrentLookup concurrentLookup;
+
+    public ComponentController(PortalApiService portalApiService, ComponentCatalogueService componentCatalogueService, ConcurrentLookup concurrentLookup) {
         this.portalApiService = portalApiService;
-        this.componentService = componentService;
+        this.componentCatalogueService = componentCatalogueService;
+        this.concurrentLookup = concurrentLookup;
     }
 
     @ApiOperation("Get all components")
@@ -50,6 +53,16 @@ public class ComponentController {
         return ResponseEntity.ok().cacheControl(CacheControl.noStore()).body(components);
     }
 
+    @ApiOperation("Get components joined with their configurations, optionally by status")
+    @GetMapping("/catalogue")
+    public ResponseEntity<List<ComponentCatalogueEntry>> getCatalogue(@RequestParam(required = false) ComponentStatus status) {
+        List<ComponentCatalogueEntry> catalogue = status == null
+                ? componentCatalogueService.getCatalogue()
+                : componentCatalogueService.getCatalogue(status);
+
+        return ResponseEntity.ok().cacheControl(CacheControl.noStore()).body(catalogue);
+    }
+
     @ApiOperation("Get component by name")
     @RequestMapping(method = RequestMethod.GET, value = "/{compName}")
     public ResponseEntity<Component> getComponent(@PathVariable String compName) {
@@ -61,10 +74,8 @@ public class ComponentController {
     @ApiOperation(("Get components actived by an organisation"))
     @GetMapping(value = "organisation/{orgName}")
     public ResponseEntity<List<Component>> getOrganisationComponents(@PathVariable String orgName) {
-        List<Component> components = new ArrayList<>();//portalApiService.getComponents();
         Organisation organisation = portalApiService.getOrganisation(orgName);
-
-        organisation.getComponents().forEach(dn -> components.add(portalApiService.getComponentByDn(dn)));
+        List<Component> components = portalApiService.getComponentsByDns(organisation.getComponents());
 
         return ResponseEntity.ok().cacheControl(CacheControl.noStore()).body(components);
     }
@@ -77,10 +88,10 @@ public class ComponentController {
     public ResponseEntity<Void> addAdapterToComponent(@PathVariable final String adapterName, @PathVariable final String compName, @PathVariable("orgName") final String orgName) {
 
         Organisation organisation = portalApiService.getOrganisation(orgName);
-        Component component = portalApiService.getComponentByName(compName);
-        Adapter adapter = portalApiService.getAdapter(organisation, adapterName);
-
-        componentService.linkAdapter(component, adapter);
+        concurrentLookup.resolve(
+                () -> portalApiService.getComponentForUpdate(compName),
+                () -> portalApiService.getAdapterForUpdate(organisation, adapterName),
+                (component, adapter) -> portalApiService.linkAdapter(organisation, component, adapter));
 
         return ResponseEntity.noContent().cacheControl(CacheControl.noStore()).build();
     }
@@ -92,10 +103,10 @@ public class ComponentController {
     public ResponseEntity<Void> removeAdapterFromComponent(@PathVariable final String adapterName, @PathVariable final String compName, @PathVariable("orgName") final String orgName) {
 
         Organisation organisation = portalApiService.getOrganisation(orgName);
-        Component component = portalApiService.getComponentByName(compName);
-        Adapter adapter = portalApiService.getAdapter(organisation, adapterName);
-
-        componentService.unLinkAdapter(component, adapter);
+        concurrentLookup.resolve(
+                () -> portalApiService.getComponentForUpdate(compName),
+                () -> portalApiService.getAdapterForUpdate(organisation, adapterName),
+                (component, adapter) -> portalApiService.unLinkAdapter(organisation, component, adapter));
 
         return ResponseEntity.noContent().cacheControl(CacheControl.noStore()).build();
     }
@@ -109,10 +120,10 @@ public class ComponentController {
     public ResponseEntity<Void> addClientToComponent(@PathVariable final String clientName, @PathVariable final String compName, @PathVariable("orgName") final String orgName) {
 
         Organisation organisation = portalApiService.getOrganisation(orgName);
-        Component component = portalApiService.getComponentByName(compName);
-        Client client = portalApiService.getClient(organisation, clientName);
-
-        componentService.linkClient(component, client);
+        concurrentLookup.resolve(
+                () -> portalApiService.getComponentForUpdate(compName),
+                () -> portalApiService.getClientForUpdate(organisation, clientName),
+                (component, client) -> portalApiService.linkClient(organisation, component, client));
 
         return ResponseEntity.noContent().cacheControl(CacheControl.noStore()).build();
     }
@@ -124,10 +135,10 @@ public class ComponentController {
     public ResponseEntity<Void> removeClientFromComponent(@PathVariable final String clientName, @PathVariable final String compName, @PathVariable("orgName") final String orgName) {
 
         Organisation organisation = portalApiService.getOrganisation(orgName);
-        Component component = portalApiService.getComponentByName(compName);
-        Client client = portalApiService.getClient(organisation, clientName);
-
-        componentService.unLinkClient(component, client);
+        concurrentLookup.resolve(
+                () -> portalApiService.getComponentForUpdate(compName),
+                () -> portalApiService.getClientForUpdate(organisation, clientName),
+                (component, client) -> portalApiService.unLinkClient(organisation, component, client));
 
         return ResponseEntity.noContent().cacheControl(CacheControl.noStore()).build();
     }
@@ -1,25 +1,31 @@
 package no.fint.portal.customer.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
 import io.swagger.annotations.Api;
 import io.swagger.annotations.ApiOperation;
 import lombok.extern.slf4j.Slf4j;
+import no.fint.portal.customer.exception.InvalidQueryException;
+import no.fint.portal.customer.service.ContactCursor;
+import no.fint.portal.customer.service.ContactPage;
 import no.fint.portal.customer.service.IdentityMaskingService;
 import no.fint.portal.customer.service.PortalApiService;
 import no.fint.portal.exceptions.*;
 import no.fint.portal.model.ErrorResponse;
 import no.fint.portal.model.contact.Contact;
-import no.fint.portal.model.contact.ContactService;
 import no.fint.portal.model.organisation.Organisation;
-import no.fint.portal.model.organisation.OrganisationService;
 import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.ldap.NameNotFoundException;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
 import java.net.UnknownHostException;
 import java.util.List;
-import java.util.Optional;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
@@ -30,16 +36,16 @@ import java.util.stream.Stream;
 @RequestMapping(value = "/api/contacts")
 public class ContactController {
 
+    public static final String NDJSON_VALUE = "application/x-ndjson";
+
     final PortalApiService portalApiService;
-    final OrganisationService organisationService;
-    private final ContactService contactService;
     private final IdentityMaskingService identityMaskingService;
+    private final ObjectMapper objectMapper;
 
-    public ContactController(PortalApiService portalApiService, OrganisationService organisationService, ContactService contactService, IdentityMaskingService identityMaskingService) {
+    public ContactController(PortalApiService portalApiService, IdentityMaskingService identityMaskingService, ObjectMapper objectMapper) {
         this.portalApiService = portalApiService;
-        this.organisationService = organisationService;
-        this.contactService = contactService;
         this.identityMaskingService = identityMaskingService;
+        this.objectMapper = objectMapper;
     }
 
     @ApiOperation("Get all contacts")
@@ -54,6 +60,27 @@ public class ContactController {
         throw new EntityNotFoundException("No contacts found.");
     }
 
+    @ApiOperation("Get a page of contacts as newline delimited JSON, with a Link to the next page")
+    @GetMapping(produces = NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamContacts(@RequestParam(defaultValue = "500") int pageSize, @RequestParam(required = false) String cursor) {
+        final ContactPage page = identityMaskingService.getMaskedContactPage(cursor == null ? null : ContactCursor.of(cursor), pageSize);
+        final ObjectWriter writer = objectMapper.writerFor(Contact.class);
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .cacheControl(CacheControl.noStore())
+                .contentType(MediaType.parseMediaType(NDJSON_VALUE));
+        if (page.getNext() != null) {
+            response.header(HttpHeaders.LINK, "<" + ServletUriComponentsBuilder.fromCurrentRequest()
+                    .replaceQueryParam("cursor", page.getNext().encode())
+                    .toUriString() + ">; rel=\"next\"");
+        }
+        return response.body(outputStream -> {
+            for (Contact contact : page.getContacts()) {
+                outputStream.write(writer.writeValueAsBytes(contact));
+                outputStream.write('\n');
+            }
+        });
+    }
+
     @ApiOperation("Get contact by nin")
     @GetMapping("/{nin}")
     public ResponseEntity<Contact> getContact(@PathVariable String nin) {
@@ -63,11 +90,11 @@ public class ContactController {
     @ApiOperation("Get contact's organisations")
     @GetMapping(value = "/organisations")
     public ResponseEntity<List<Organisation>> getContactOrganisations(@RequestHeader(value = "x-nin") final String nin) {
-        var contact = contactService.getContact(nin).orElseThrow(() -> new EntityNotFoundException("Contact not found"));
-        var contactOrganisations = Stream.concat(contact.getLegal().stream(), contact.getTechnical()
+        var contact = portalApiService.getContact(nin);
+        var contactOrganisations = portalApiService.getOrganisationsByDns(Stream.concat(contact.getLegal().stream(), contact.getTechnical()
                 .stream())
-                .map(organisationService::getOrganisationByDn)
-                .flatMap(Optional::stream)
+                .collect(Collectors.toList()))
+                .stream()
                 .map(identityMaskingService::mask)
                 .distinct()
                 .collect(Collectors.toList());
@@ -102,6 +129,11 @@ public class ContactController {
         return ResponseEntity.status(HttpStatus.FOUND).body(new ErrorResponse(e.getMessage()));
     }
 
+    @ExceptionHandler(InvalidQueryException.class)
+    public ResponseEntity<ErrorResponse> handleInvalidQuery(Exception e) {
+        return ResponseEntity.badRequest().body(new ErrorResponse(e.getMessage()));
+    }
+
     @ExceptionHandler(NameNotFoundException.class)
     public ResponseEntity<ErrorResponse> handleNameNotFound(Exception e) {
         return ResponseEntity.badRequest().body(new ErrorResponse(e.getMessage()));
@@ -3,22 +3,19 @@ package no.fint.portal.customer.controller;
 import io.swagger.annotations.Api;
 import lombok.extern.slf4j.Slf4j;
 import no.finn.unleash.DefaultUnleash;
-import no.fint.audit.model.AuditEvent;
-import no.fint.portal.customer.service.PortalApiService;
-import no.fint.portal.model.asset.Asset;
-import no.fint.portal.model.asset.AssetService;
-import no.fint.portal.model.organisation.Organisation;
-import org.springframework.beans.factory.annotation.Value;
-import org.springframework.boot.web.client.RestTemplateBuilder;
-import org.springframework.cache.annotation.Cacheable;
+import no.fint.portal.customer.exception.InvalidQueryException;
+import no.fint.portal.customer.service.AssetIdService;
+import no.fint.portal.customer.service.AuditEventProxy;
+import no.fint.portal.customer.service.AuditEventQuery;
+import no.fint.portal.model.ErrorResponse;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
-import org.springframework.http.client.ClientHttpResponse;
 import org.springframework.web.bind.annotation.*;
-import org.springframework.web.client.RestTemplate;
 
-import java.util.List;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.time.Instant;
 
 @Slf4j
 @RestController
@@ -27,71 +24,64 @@ import java.util.List;
 @RequestMapping(path = "/api/events/{orgName}/{environment}", produces = MediaType.APPLICATION_JSON_VALUE)
 public class EventsController {
 
-    private final RestTemplate restTemplate;
     private final DefaultUnleash unleashClient;
-    private final PortalApiService portalApiService;
-    private final AssetService assetService;
+    private final AssetIdService assetIdService;
+    private final AuditEventProxy auditEventProxy;
 
-
-    public EventsController(
-            @Value("${fint.events.username}") String username,
-            @Value("${fint.events.password}") String password,
-            RestTemplateBuilder builder,
-            DefaultUnleash unleashClient, PortalApiService portalApiService, AssetService assetService) {
+    public EventsController(DefaultUnleash unleashClient, AssetIdService assetIdService, AuditEventProxy auditEventProxy) {
         this.unleashClient = unleashClient;
-        this.portalApiService = portalApiService;
-        this.assetService = assetService;
-        restTemplate = builder.basicAuthentication(username, password)
-                .additionalInterceptors((request, body, execution) -> {
-                    log.debug("{} {}", request.getMethod(), request.getURI());
-                    final ClientHttpResponse response = execution.execute(request, body);
-                    log.debug("--> {}", response.getStatusCode());
-                    return response;
-                })
-                .build();
+        this.assetIdService = assetIdService;
+        this.auditEventProxy = auditEventProxy;
         log.info("Initialized.");
     }
 
     @GetMapping(path = "/{component}/{action}")
-    public ResponseEntity<List<AuditEvent>> query(
+    public void query(
             @PathVariable String orgName,
             @PathVariable String environment,
             @PathVariable String component,
-            @PathVariable String action
+            @PathVariable String action,
+            @RequestParam(required = false) String filter,
+            @RequestParam(required = false) Instant from,
+            @RequestParam(required = false) Instant to,
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(required = false) String cursor,
+            HttpServletRequest request,
+            HttpServletResponse response
     ) {
         if (unleashClient.isEnabled("fint-kunde-portal.audit-log")) {
-            String orgId = getPrimaryAssetId(orgName);
-            return ResponseEntity.ok(
-                    List.of(restTemplate
-                            .getForObject("https://{environment}.felleskomponent.no/events/api/{orgId}/{component}/{action}",
-                                    AuditEvent[].class,
-                                    environment, orgId, component, action))
-            );
+            String orgId = assetIdService.getPrimaryAssetId(orgName);
+            auditEventProxy.stream(request, response, AuditEventQuery.of(filter, from, to, limit, cursor),
+                    "https://{environment}.felleskomponent.no/events/api/{orgId}/{component}/{action}",
+                    environment, orgId, component, action);
+            return;
         }
-        return ResponseEntity.status(HttpStatus.NOT_IMPLEMENTED).build();
+        response.setStatus(HttpStatus.NOT_IMPLEMENTED.value());
     }
 
     @GetMapping(path = "/id/{id}")
-    public ResponseEntity<List<AuditEvent>> getById(
+    public void getById(
             @PathVariable String orgName,
             @PathVariable String environment,
-            @PathVariable String id
+            @PathVariable String id,
+            @RequestParam(required = false) String filter,
+            HttpServletRequest request,
+            HttpServletResponse response
     ) {
         if (unleashClient.isEnabled("fint-kunde-portal.audit-log")) {
-            return ResponseEntity.ok(
-                    List.of(restTemplate
-                            .getForObject("https://{environment}.felleskomponent.no/events/api/id/{id}",
-                                    AuditEvent[].class,
-                                    environment, id))
-            );
+            auditEventProxy.stream(request, response, AuditEventQuery.of(filter, null, null, null, null),
+                    "https://{environment}.felleskomponent.no/events/api/id/{id}",
+                    environment, id);
+            return;
         }
-        return ResponseEntity.status(HttpStatus.NOT_IMPLEMENTED).build();
+        response.setStatus(HttpStatus.NOT_IMPLEMENTED.value());
     }
 
-    @Cacheable("assetIds")
-    public String getPrimaryAssetId(String orgName) {
-        Organisation organisation = portalApiService.getOrganisation(orgName);
-        Asset primaryAsset = assetService.getPrimaryAsset(organisation);
-        return primaryAsset.getAssetId();
+    //
+    // Exception handlers
+    //
+    @ExceptionHandler(InvalidQueryException.class)
+    public ResponseEntity<ErrorResponse> handleInvalidQuery(Exception e) {
+        return ResponseEntity.badRequest().body(new ErrorResponse(e.getMessage()));
     }
 }
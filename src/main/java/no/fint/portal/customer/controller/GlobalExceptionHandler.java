@@ -1,7 +1,12 @@
 package no.fint.portal.customer.controller;
 
+import no.fint.portal.customer.exception.BackendUnavailableException;
+import no.fint.portal.model.ErrorResponse;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.ControllerAdvice;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.servlet.NoHandlerFoundException;
@@ -18,4 +23,12 @@ class GlobalExceptionHandler {
         logger.error("Exception caught: NoHandlerFoundException - " + ex.getMessage());
         return "forward:/index.html";
     }
+
+    @ExceptionHandler(BackendUnavailableException.class)
+    public ResponseEntity<ErrorResponse> handleBackendUnavailable(BackendUnavailableException ex) {
+        logger.warn(ex.getMessage());
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(Math.max(1, ex.getRetryAfter().toSeconds())))
+                .body(new ErrorResponse(ex.getMessage()));
+    }
 }
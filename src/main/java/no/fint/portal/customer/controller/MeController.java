@@ -11,7 +11,6 @@ import no.fint.portal.exceptions.EntityNotFoundException;
 import no.fint.portal.exceptions.UpdateEntityMismatchException;
 import no.fint.portal.model.ErrorResponse;
 import no.fint.portal.model.contact.Contact;
-import no.fint.portal.model.organisation.OrganisationService;
 import org.apache.commons.lang3.StringUtils;
 import org.springframework.http.CacheControl;
 import org.springframework.http.HttpStatus;
@@ -21,7 +20,7 @@ import org.springframework.web.bind.annotation.*;
 
 import java.net.UnknownHostException;
 import java.util.Collections;
-import java.util.Optional;
+import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 @Slf4j
@@ -32,12 +31,10 @@ import java.util.stream.Stream;
 public class MeController {
 
     private final PortalApiService portalApiService;
-    private final OrganisationService organisationService;
     private final DefaultUnleash unleashClient;
 
-    public MeController(PortalApiService portalApiService, OrganisationService organisationService, DefaultUnleash unleashClient) {
+    public MeController(PortalApiService portalApiService, DefaultUnleash unleashClient) {
         this.portalApiService = portalApiService;
-        this.organisationService = organisationService;
         this.unleashClient = unleashClient;
     }
 
@@ -54,11 +51,9 @@ public class MeController {
         if (unleashClient.isEnabled("fint-kunde-portal.roles-init")
                 && (contact.getRoles() == null || contact.getRoles().isEmpty())) {
             log.info("{} {} has no roles, adding ROLE_ADMIN for all organisations...", contact.getFirstName(), contact.getLastName());
-            Stream.concat(contact.getLegal().stream(), contact.getTechnical().stream())
-                    .map(organisationService::getOrganisationByDn)
-                    .flatMap(Optional::stream)
+            portalApiService.getOrganisationsByDns(Stream.concat(contact.getLegal().stream(), contact.getTechnical().stream()).collect(Collectors.toList()))
                     .forEach(organisation -> {
-                        organisationService.addRoles(organisation, contact, Collections.singletonList("ROLE_ADMIN"));
+                        portalApiService.addRoles(organisation, contact, Collections.singletonList("ROLE_ADMIN"));
                         log.info("Added admin for {}", organisation.getDisplayName());
                     });
         }
@@ -13,12 +13,11 @@ import no.fint.portal.exceptions.UpdateEntityException;
 import no.fint.portal.exceptions.UpdateEntityMismatchException;
 import no.fint.portal.model.ErrorResponse;
 import no.fint.portal.model.asset.Asset;
-import no.fint.portal.model.asset.AssetService;
 import no.fint.portal.model.component.Component;
 import no.fint.portal.model.contact.Contact;
 import no.fint.portal.model.organisation.Organisation;
-import no.fint.portal.model.organisation.OrganisationService;
 import org.apache.commons.lang3.StringUtils;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.http.CacheControl;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
@@ -28,7 +27,8 @@ import org.springframework.web.bind.annotation.*;
 import java.net.UnknownHostException;
 import java.util.Arrays;
 import java.util.List;
-import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
@@ -42,40 +42,39 @@ public class OrganisationController {
     final
     PortalApiService portalApiService;
 
-    private final OrganisationService organisationService;
-
-    private final AssetService assetService;
-
     private final IdentityMaskingService identityMaskingService;
 
     private final DefaultUnleash unleashClient;
 
-    public OrganisationController(PortalApiService portalApiService, OrganisationService organisationService, AssetService assetService, IdentityMaskingService identityMaskingService, DefaultUnleash unleashClient) {
+    private final ExecutorService ldapExecutor;
+
+    public OrganisationController(PortalApiService portalApiService, IdentityMaskingService identityMaskingService, DefaultUnleash unleashClient, @Qualifier("ldapExecutor") ExecutorService ldapExecutor) {
         this.portalApiService = portalApiService;
-        this.organisationService = organisationService;
-        this.assetService = assetService;
         this.identityMaskingService = identityMaskingService;
         this.unleashClient = unleashClient;
+        this.ldapExecutor = ldapExecutor;
     }
 
     @GetMapping("/")
     @ApiOperation("Get Organisation")
-    public ResponseEntity<Organisation> getOrganisationDetails(@PathVariable String orgName) {
-        Organisation organisation = portalApiService.getOrganisation(orgName);
-        return ResponseEntity.ok().cacheControl(CacheControl.noStore()).body(identityMaskingService.mask(organisation));
+    public CompletableFuture<ResponseEntity<Organisation>> getOrganisationDetails(@PathVariable String orgName) {
+        return CompletableFuture.supplyAsync(() -> {
+            Organisation organisation = portalApiService.getOrganisation(orgName);
+            return ResponseEntity.ok().cacheControl(CacheControl.noStore()).body(identityMaskingService.mask(organisation));
+        }, ldapExecutor);
     }
 
     @PutMapping("/")
     @ApiOperation("Update Organisation")
     public ResponseEntity<Organisation> updateOrganisation(@PathVariable String orgName,
                                                            @RequestBody Organisation organisation) {
-        Organisation original = portalApiService.getOrganisation(orgName);
+        Organisation original = portalApiService.getOrganisationForUpdate(orgName);
         if (organisation.getDisplayName() != null)
             original.setDisplayName(organisation.getDisplayName());
         if (organisation.getOrgNumber() != null)
             original.setOrgNumber(organisation.getOrgNumber());
 
-        organisationService.updateOrganisation(original);
+        portalApiService.updateOrganisation(original);
 
         return ResponseEntity.ok().cacheControl(CacheControl.noStore()).body(original);
     }
@@ -83,40 +82,35 @@ public class OrganisationController {
 
     @ApiOperation("Get primary asset")
     @GetMapping(value = "/asset/primary")
-    public ResponseEntity<Asset> getOrganizationPrimaryAsset(@PathVariable String orgName) {
-        Optional<Organisation> organisation = organisationService.getOrganisation(orgName);
-
-        if (organisation.isPresent()) {
-            Optional<Asset> primaryAsset = assetService.getAssets(organisation.get()).stream().filter(asset -> asset.isPrimaryAsset()).findFirst();
-            if (primaryAsset.isPresent()) {
-                return ResponseEntity.ok().cacheControl(CacheControl.noStore()).body(primaryAsset.get());
-            }
-            throw new EntityNotFoundException("Primary asset not present.");
-        }
+    public CompletableFuture<ResponseEntity<Asset>> getOrganizationPrimaryAsset(@PathVariable String orgName) {
+        return CompletableFuture.supplyAsync(() -> {
+            Organisation organisation = portalApiService.getOrganisation(orgName);
+            Asset primaryAsset = portalApiService.getPrimaryAsset(organisation);
 
-        throw new EntityNotFoundException(
-                String.format("Organisation %s could not be found so we can't find any primary asset for it either ;)", orgName)
-        );
+            return ResponseEntity.ok().cacheControl(CacheControl.noStore()).body(primaryAsset);
+        }, ldapExecutor);
     }
 
     @GetMapping("/contacts/legal")
     @ApiOperation("Get Legal Contact")
-    public ResponseEntity<Contact> getLegalContact(@PathVariable String orgName) {
-        Organisation organisation = portalApiService.getOrganisation(orgName);
+    public CompletableFuture<ResponseEntity<Contact>> getLegalContact(@PathVariable String orgName) {
+        return CompletableFuture.supplyAsync(() -> {
+            Organisation organisation = portalApiService.getOrganisation(orgName);
 
-        Contact legalContact = organisationService.getLegalContact(organisation);
-        if (legalContact == null) throw new EntityNotFoundException("Legal Contact not found");
+            Contact legalContact = portalApiService.getLegalContact(organisation);
+            if (legalContact == null) throw new EntityNotFoundException("Legal Contact not found");
 
-        return ResponseEntity.ok().cacheControl(CacheControl.noStore()).body(identityMaskingService.mask(legalContact));
+            return ResponseEntity.ok().cacheControl(CacheControl.noStore()).body(identityMaskingService.mask(legalContact));
+        }, ldapExecutor);
     }
 
     @PutMapping("/contacts/legal/{nin}")
     @ApiOperation("Set Legal Contact")
     public ResponseEntity<Void> linkLegalContact(@PathVariable String orgName, @PathVariable String nin) {
-        Organisation organisation = portalApiService.getOrganisation(orgName);
-        Contact contact = portalApiService.getContact(identityMaskingService.unmask(nin));
+        Organisation organisation = portalApiService.getOrganisationForUpdate(orgName);
+        Contact contact = portalApiService.getContactForUpdate(identityMaskingService.unmask(nin));
 
-        organisationService.linkLegalContact(organisation, contact);
+        portalApiService.linkLegalContact(organisation, contact);
 
         return ResponseEntity.noContent().cacheControl(CacheControl.noStore()).build();
     }
@@ -124,10 +118,10 @@ public class OrganisationController {
     @DeleteMapping("/contacts/legal/{nin}")
     @ApiOperation("Unset Legal Contact")
     public ResponseEntity<Void> unLinkLegalContact(@PathVariable String orgName, @PathVariable String nin) {
-        Organisation organisation = portalApiService.getOrganisation(orgName);
-        Contact contact = portalApiService.getContact(identityMaskingService.unmask(nin));
+        Organisation organisation = portalApiService.getOrganisationForUpdate(orgName);
+        Contact contact = portalApiService.getContactForUpdate(identityMaskingService.unmask(nin));
 
-        organisationService.unLinkLegalContact(organisation, contact);
+        portalApiService.unLinkLegalContact(organisation, contact);
 
         return ResponseEntity.noContent().cacheControl(CacheControl.noStore()).build();
     }
@@ -140,15 +134,15 @@ public class OrganisationController {
             return ResponseEntity.status(HttpStatus.NOT_IMPLEMENTED).build();
         }
 
-        Organisation organisation = portalApiService.getOrganisation(orgName);
+        Organisation organisation = portalApiService.getOrganisationForUpdate(orgName);
         String unmaskedNin = identityMaskingService.unmask(nin);
-        final Contact contact = Stream.concat(Stream.of(organisationService.getLegalContact(organisation)),
-                organisationService.getTechnicalContacts(organisation).stream())
+        final Contact contact = Stream.concat(Stream.of(portalApiService.getLegalContact(organisation)),
+                portalApiService.getTechnicalContacts(organisation).stream())
                 .filter(con -> StringUtils.equals(unmaskedNin, con.getNin()))
                 .findFirst()
                 .orElseThrow(EntityNotFoundException::new);
 
-        organisationService.addRoles(organisation, contact, Arrays.stream(roles).map(Enum::name).collect(Collectors.toList()));
+        portalApiService.addRoles(organisation, contact, Arrays.stream(roles).map(Enum::name).collect(Collectors.toList()));
 
         return ResponseEntity.accepted().build();
 
@@ -162,35 +156,37 @@ public class OrganisationController {
             return ResponseEntity.status(HttpStatus.NOT_IMPLEMENTED).build();
         }
 
-        Organisation organisation = portalApiService.getOrganisation(orgName);
+        Organisation organisation = portalApiService.getOrganisationForUpdate(orgName);
         String unmaskedNin = identityMaskingService.unmask(nin);
-        final Contact contact = Stream.concat(Stream.of(organisationService.getLegalContact(organisation)),
-                organisationService.getTechnicalContacts(organisation).stream())
+        final Contact contact = Stream.concat(Stream.of(portalApiService.getLegalContact(organisation)),
+                portalApiService.getTechnicalContacts(organisation).stream())
                 .filter(con -> StringUtils.equals(unmaskedNin, con.getNin()))
                 .findFirst()
                 .orElseThrow(EntityNotFoundException::new);
 
-        organisationService.removeRoles(organisation, contact, Arrays.stream(roles).map(Enum::name).collect(Collectors.toList()));
+        portalApiService.removeRoles(organisation, contact, Arrays.stream(roles).map(Enum::name).collect(Collectors.toList()));
 
         return ResponseEntity.accepted().build();
     }
 
     @GetMapping("/contacts/technical")
     @ApiOperation("Get Technical Contacts")
-    public ResponseEntity<List<Contact>> getTechnicalContacts(@PathVariable String orgName) {
-        Organisation organisation = portalApiService.getOrganisation(orgName);
-        List<Contact> technicalContacts = organisationService.getTechnicalContacts(organisation).stream().map(identityMaskingService::mask).collect(Collectors.toList());
+    public CompletableFuture<ResponseEntity<List<Contact>>> getTechnicalContacts(@PathVariable String orgName) {
+        return CompletableFuture.supplyAsync(() -> {
+            Organisation organisation = portalApiService.getOrganisation(orgName);
+            List<Contact> technicalContacts = portalApiService.getTechnicalContacts(organisation).stream().map(identityMaskingService::mask).collect(Collectors.toList());
 
-        return ResponseEntity.ok().cacheControl(CacheControl.noStore()).body(technicalContacts);
+            return ResponseEntity.ok().cacheControl(CacheControl.noStore()).body(technicalContacts);
+        }, ldapExecutor);
     }
 
     @PutMapping("/contacts/technical/{nin}")
     @ApiOperation("Add Technical Contact")
     public ResponseEntity<Void> linkTechnicalContact(@PathVariable String orgName, @PathVariable String nin) {
-        Organisation organisation = portalApiService.getOrganisation(orgName);
-        Contact contact = portalApiService.getContact(identityMaskingService.unmask(nin));
+        Organisation organisation = portalApiService.getOrganisationForUpdate(orgName);
+        Contact contact = portalApiService.getContactForUpdate(identityMaskingService.unmask(nin));
 
-        organisationService.linkTechnicalContact(organisation, contact);
+        portalApiService.linkTechnicalContact(organisation, contact);
 
         return ResponseEntity.noContent().cacheControl(CacheControl.noStore()).build();
     }
@@ -198,10 +194,10 @@ public class OrganisationController {
     @DeleteMapping("/contacts/technical/{nin}")
     @ApiOperation("Remove Technical Contact")
     public ResponseEntity<Void> unLinkTechnicalContact(@PathVariable String orgName, @PathVariable String nin) {
-        Organisation organisation = portalApiService.getOrganisation(orgName);
-        Contact contact = portalApiService.getContact(identityMaskingService.unmask(nin));
+        Organisation organisation = portalApiService.getOrganisationForUpdate(orgName);
+        Contact contact = portalApiService.getContactForUpdate(identityMaskingService.unmask(nin));
 
-        organisationService.unLinkTechnicalContact(organisation, contact);
+        portalApiService.unLinkTechnicalContact(organisation, contact);
 
         return ResponseEntity.noContent().cacheControl(CacheControl.noStore()).build();
     }
@@ -209,10 +205,10 @@ public class OrganisationController {
     @PutMapping("/components/{compName}")
     @ApiOperation("Link Component")
     public ResponseEntity<Void> linkComponent(@PathVariable String orgName, @PathVariable String compName) {
-        Organisation organisation = portalApiService.getOrganisation(orgName);
-        Component component = portalApiService.getComponentByName(compName);
+        Organisation organisation = portalApiService.getOrganisationForUpdate(orgName);
+        Component component = portalApiService.getComponentForUpdate(compName);
 
-        organisationService.linkComponent(organisation, component);
+        portalApiService.linkComponent(organisation, component);
 
         return ResponseEntity.noContent().cacheControl(CacheControl.noStore()).build();
     }
@@ -221,10 +217,10 @@ public class OrganisationController {
     @DeleteMapping("/components/{compName}")
     @ApiOperation("Unlink Component")
     public ResponseEntity<Void> unLinkComponent(@PathVariable String orgName, @PathVariable String compName) {
-        Organisation organisation = portalApiService.getOrganisation(orgName);
-        Component component = portalApiService.getComponentByName(compName);
+        Organisation organisation = portalApiService.getOrganisationForUpdate(orgName);
+        Component component = portalApiService.getComponentForUpdate(compName);
 
-        organisationService.unLinkComponent(organisation, component);
+        portalApiService.unLinkComponent(organisation, component);
 
         return ResponseEntity.noContent().cacheControl(CacheControl.noStore()).build();
     }
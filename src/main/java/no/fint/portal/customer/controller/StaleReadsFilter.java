@@ -0,0 +1,28 @@
+package no.fint.portal.customer.controller;
+
+import no.fint.portal.customer.service.StaleReads;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+
+/**
+ * Gives every request a {@link StaleReads} flag, kept as a request attribute for {@link StaleResponseAdvice}.
+ */
+@Component
+class StaleReadsFilter extends OncePerRequestFilter {
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain) throws ServletException, IOException {
+        request.setAttribute(StaleReads.ATTRIBUTE, StaleReads.begin());
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            StaleReads.end();
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package no.fint.portal.customer.controller;
+
+import no.fint.portal.customer.service.StaleReads;
+import org.springframework.core.MethodParameter;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.http.server.ServletServerHttpRequest;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyAdvice;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Adds {@code Warning: 110} to responses built from data served while LDAP was unavailable.
+ */
+@ControllerAdvice
+class StaleResponseAdvice implements ResponseBodyAdvice<Object> {
+
+    static final String STALE_WARNING = "110 - \"Response is Stale\"";
+
+    @Override
+    public boolean supports(MethodParameter returnType, Class<? extends HttpMessageConverter<?>> converterType) {
+        return true;
+    }
+
+    @Override
+    public Object beforeBodyWrite(Object body, MethodParameter returnType, MediaType selectedContentType, Class<? extends HttpMessageConverter<?>> selectedConverterType, ServerHttpRequest request, ServerHttpResponse response) {
+        if (request instanceof ServletServerHttpRequest) {
+            Object stale = ((ServletServerHttpRequest) request).getServletRequest().getAttribute(StaleReads.ATTRIBUTE);
+            if (stale instanceof AtomicBoolean && ((AtomicBoolean) stale).get()) {
+                response.getHeaders().add(HttpHeaders.WARNING, STALE_WARNING);
+            }
+        }
+        return body;
+    }
+}
@@ -0,0 +1,22 @@
+package no.fint.portal.customer.exception;
+
+import java.time.Duration;
+
+public class BackendUnavailableException extends RuntimeException {
+    private final String backend;
+    private final Duration retryAfter;
+
+    public BackendUnavailableException(String backend, Duration retryAfter) {
+        super(String.format("Backend %s is unavailable, retry after %d seconds", backend, retryAfter.toSeconds()));
+        this.backend = backend;
+        this.retryAfter = retryAfter;
+    }
+
+    public String getBackend() {
+        return backend;
+    }
+
+    public Duration getRetryAfter() {
+        return retryAfter;
+    }
+}
@@ -0,0 +1,7 @@
+package no.fint.portal.customer.exception;
+
+public class InvalidQueryException extends RuntimeException {
+    public InvalidQueryException(String message) {
+        super(message);
+    }
+}
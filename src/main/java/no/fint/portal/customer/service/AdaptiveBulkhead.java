@@ -0,0 +1,104 @@
+package no.fint.portal.customer.service;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import no.fint.portal.customer.config.BulkheadConfig;
+
+import java.time.Duration;
+
+/**
+ * Bulkhead whose limit follows the latency of the backend, after the gradient limit of Netflix' concurrency-limits.
+ * <p>
+ * Round trip times are averaged over windows of {@value #WINDOW} calls and compared with a long term average over
+ * about {@value #LONG_WINDOW} windows. While the recent RTT stays within {@code tolerance} of the long term RTT the
+ * limit grows by about its square root per window. As the recent RTT rises beyond that, the limit shrinks by the
+ * same ratio, down to half per window. Windows where less than half the limit was in use carry no signal and leave
+ * the limit as is. The configured fixed limit of the backend is the upper bound.
+ * <p>
+ * Only calls that reach the backend may go through the bulkhead, as {@link LdapCalls} does for the directory.
+ * Answers from a cache would pull the long term RTT towards zero and make every real call look slow.
+ */
+public class AdaptiveBulkhead extends Bulkhead {
+
+    static final int WINDOW = 20;
+    static final int LONG_WINDOW = 30;
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final double tolerance;
+    private final double smoothing;
+
+    private volatile int limit;
+    private volatile double shortRtt;
+    private volatile double longRtt;
+
+    // guarded by this
+    private double estimatedLimit;
+    private long windowRtt;
+    private int windowCalls;
+    private int windowMaxInFlight;
+
+    public AdaptiveBulkhead(String backend, int maxLimit, BulkheadConfig.Adaptive adaptive, Duration retryAfter, MeterRegistry meterRegistry) {
+        super(backend, maxLimit, retryAfter, meterRegistry);
+        this.minLimit = adaptive.getMinLimit();
+        this.maxLimit = maxLimit;
+        this.tolerance = adaptive.getTolerance();
+        this.smoothing = adaptive.getSmoothing();
+        this.estimatedLimit = Math.max(minLimit, Math.min(maxLimit, adaptive.getInitialLimit()));
+        this.limit = (int) estimatedLimit;
+        Gauge.builder("fint.bulkhead.rtt", this, it -> it.shortRtt / 1e9)
+                .description("Average round trip time of the last window")
+                .tag("backend", backend)
+                .tag("window", "short")
+                .baseUnit("seconds")
+                .register(meterRegistry);
+        Gauge.builder("fint.bulkhead.rtt", this, it -> it.longRtt / 1e9)
+                .description("Long term average round trip time")
+                .tag("backend", backend)
+                .tag("window", "long")
+                .baseUnit("seconds")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public int getLimit() {
+        return limit;
+    }
+
+    @Override
+    protected synchronized void onCompleted(long rttNanos, int inFlight) {
+        windowRtt += rttNanos;
+        windowMaxInFlight = Math.max(windowMaxInFlight, inFlight);
+        if (++windowCalls < WINDOW) {
+            return;
+        }
+        double sample = (double) windowRtt / windowCalls;
+        int maxInFlight = windowMaxInFlight;
+        windowRtt = 0;
+        windowCalls = 0;
+        windowMaxInFlight = 0;
+        update(sample, maxInFlight);
+    }
+
+    private void update(double rtt, int maxInFlight) {
+        if (rtt <= 0) {
+            return;
+        }
+        double longTerm = longRtt == 0 ? rtt : longRtt + (rtt - longRtt) / LONG_WINDOW;
+        if (longTerm / rtt > 2) {
+            // Latency has dropped well below the long term average, let the average catch up faster
+            longTerm *= 0.95;
+        }
+        shortRtt = rtt;
+        longRtt = longTerm;
+
+        if (maxInFlight < estimatedLimit / 2) {
+            return;
+        }
+        double gradient = Math.max(0.5, Math.min(1.0, tolerance * longTerm / rtt));
+        double next = estimatedLimit * gradient + Math.sqrt(estimatedLimit);
+        next = estimatedLimit * (1 - smoothing) + next * smoothing;
+        estimatedLimit = Math.max(minLimit, Math.min(maxLimit, next));
+        limit = (int) estimatedLimit;
+    }
+}
@@ -0,0 +1,33 @@
+package no.fint.portal.customer.service;
+
+import no.fint.portal.model.organisation.Organisation;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+/**
+ * Primary asset id per organisation, used to address the audit log.
+ */
+@Service
+public class AssetIdService {
+
+    public static final String CACHE = "assetIds";
+
+    private final PortalApiService portalApiService;
+
+    public AssetIdService(PortalApiService portalApiService) {
+        this.portalApiService = portalApiService;
+    }
+
+    @Cacheable(CACHE)
+    public String getPrimaryAssetId(String orgName) {
+        Organisation organisation = portalApiService.getOrganisation(orgName);
+        return portalApiService.getPrimaryAsset(organisation).getAssetId();
+    }
+
+    @EventListener
+    @CacheEvict(value = CACHE, key = "#event.orgName")
+    public void onAssetsChanged(AssetsChangedEvent event) {
+    }
+}
@@ -0,0 +1,44 @@
+package no.fint.portal.customer.service;
+
+import no.fint.portal.model.asset.Asset;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Lookups by name and of the primary asset over the assets of one organisation.
+ * The index itself cannot be changed, but it hands out the asset instances it was built from.
+ */
+public class AssetIndex {
+
+    private final List<Asset> assets;
+    private final Map<String, Asset> byName = new HashMap<>();
+    private final Asset primaryAsset;
+
+    public AssetIndex(List<Asset> assets) {
+        this.assets = Collections.unmodifiableList(assets);
+        Asset primary = null;
+        for (Asset asset : assets) {
+            byName.putIfAbsent(asset.getName(), asset);
+            if (primary == null && asset.isPrimaryAsset()) {
+                primary = asset;
+            }
+        }
+        primaryAsset = primary;
+    }
+
+    public List<Asset> getAssets() {
+        return assets;
+    }
+
+    public Optional<Asset> getByName(String name) {
+        return Optional.ofNullable(byName.get(name));
+    }
+
+    public Optional<Asset> getPrimaryAsset() {
+        return Optional.ofNullable(primaryAsset);
+    }
+}
@@ -0,0 +1,11 @@
+package no.fint.portal.customer.service;
+
+import lombok.Value;
+
+/**
+ * Published when the assets of an organisation change.
+ */
+@Value
+public class AssetsChangedEvent {
+    String orgName;
+}
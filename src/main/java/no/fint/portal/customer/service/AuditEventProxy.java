@@ -0,0 +1,188 @@
+package no.fint.portal.customer.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import no.fint.portal.customer.exception.InvalidQueryException;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.client.RestTemplateBuilder;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
+import org.springframework.http.client.ClientHttpRequestFactory;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.stereotype.Service;
+import org.springframework.util.StreamUtils;
+import org.springframework.web.client.RestTemplate;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Streams audit events from the events API to the servlet response.
+ * Without a query the upstream body, gzip included, is copied through unchanged. Otherwise the event
+ * array is parsed one event at a time and selected events are written as they are read; a page is
+ * held back only until it is known whether a next page exists.
+ */
+@Slf4j
+@Service
+public class AuditEventProxy {
+
+    private static final String GZIP = "gzip";
+
+    private final RestTemplate restTemplate;
+    private final ObjectMapper objectMapper;
+    private final Bulkhead bulkhead;
+
+    public AuditEventProxy(
+            @Value("${fint.events.username}") String username,
+            @Value("${fint.events.password}") String password,
+            RestTemplateBuilder builder,
+            @Qualifier("passThroughRequestFactory") ClientHttpRequestFactory requestFactory,
+            ObjectMapper objectMapper,
+            Bulkheads bulkheads) {
+        this.objectMapper = objectMapper;
+        this.bulkhead = bulkheads.get(Bulkheads.EVENTS);
+        restTemplate = builder.requestFactory(() -> requestFactory)
+                .basicAuthentication(username, password)
+                .additionalInterceptors((request, body, execution) -> {
+                    log.debug("{} {}", request.getMethod(), request.getURI());
+                    final ClientHttpResponse response = execution.execute(request, body);
+                    log.debug("--> {}", response.getStatusCode());
+                    return response;
+                })
+                .build();
+    }
+
+    public void stream(HttpServletRequest request, HttpServletResponse response, AuditEventQuery query, String uriTemplate, Object... uriVariables) {
+        final boolean passThrough = query.isPassThrough();
+        bulkhead.run(() ->
+            restTemplate.execute(uriTemplate, HttpMethod.GET,
+                    upstreamRequest -> {
+                        upstreamRequest.getHeaders().setAccept(List.of(MediaType.APPLICATION_JSON));
+                        if (passThrough && acceptsGzip(request)) {
+                            upstreamRequest.getHeaders().set(HttpHeaders.ACCEPT_ENCODING, GZIP);
+                        }
+                    },
+                    upstream -> {
+                        response.setStatus(upstream.getRawStatusCode());
+                        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+                        if (passThrough) {
+                            copy(upstream, response);
+                        } else {
+                            select(decoded(upstream), request, response, query);
+                        }
+                        return null;
+                    },
+                    uriVariables));
+    }
+
+    private static boolean acceptsGzip(HttpServletRequest request) {
+        return Optional.ofNullable(request.getHeader(HttpHeaders.ACCEPT_ENCODING))
+                .map(it -> it.toLowerCase().contains(GZIP))
+                .orElse(false);
+    }
+
+    private static void copy(ClientHttpResponse upstream, HttpServletResponse response) throws IOException {
+        final HttpHeaders headers = upstream.getHeaders();
+        Optional.ofNullable(headers.getFirst(HttpHeaders.CONTENT_ENCODING)).ifPresent(it -> response.setHeader(HttpHeaders.CONTENT_ENCODING, it));
+        if (headers.getContentLength() >= 0) {
+            response.setContentLengthLong(headers.getContentLength());
+        }
+        StreamUtils.copy(upstream.getBody(), response.getOutputStream());
+    }
+
+    private static InputStream decoded(ClientHttpResponse upstream) throws IOException {
+        if (GZIP.equalsIgnoreCase(upstream.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING))) {
+            return new GZIPInputStream(upstream.getBody());
+        }
+        return upstream.getBody();
+    }
+
+    private void select(InputStream input, HttpServletRequest request, HttpServletResponse response, AuditEventQuery query) throws IOException {
+        try (JsonParser parser = objectMapper.getFactory().createParser(input)) {
+            parser.nextToken();
+            final AuditEventQuery.Positions positions = new AuditEventQuery.Positions();
+            if (query.hasCursor() && !skipPastCursor(parser, query, positions)) {
+                throw new InvalidQueryException("The cursor no longer points to an event, start again from the first page");
+            }
+
+            if (query.getLimit() == null) {
+                try (JsonGenerator generator = objectMapper.getFactory().createGenerator(response.getOutputStream())) {
+                    generator.writeStartArray();
+                    for (JsonNode event = nextMatch(parser, query, positions); event != null; event = nextMatch(parser, query, positions)) {
+                        generator.writeTree(event);
+                    }
+                    generator.writeEndArray();
+                }
+                return;
+            }
+
+            final List<JsonNode> page = new ArrayList<>(query.getLimit());
+            int lastIndex = 0;
+            JsonNode event;
+            while (page.size() < query.getLimit() && (event = nextMatch(parser, query, positions)) != null) {
+                page.add(event);
+                lastIndex = positions.index();
+            }
+            if (page.size() == query.getLimit() && nextMatch(parser, query, positions) != null) {
+                response.setHeader(HttpHeaders.LINK, "<" + ServletUriComponentsBuilder.fromRequest(request)
+                        .replaceQueryParam("cursor", AuditEventQuery.cursorAfter(page.get(page.size() - 1), lastIndex))
+                        .toUriString() + ">; rel=\"next\"");
+            }
+            try (JsonGenerator generator = objectMapper.getFactory().createGenerator(response.getOutputStream())) {
+                generator.writeStartArray();
+                for (JsonNode event : page) {
+                    generator.writeTree(event);
+                }
+                generator.writeEndArray();
+            }
+        }
+    }
+
+    /*
+     * Reads up to and including the last event of the previous page. Returns false if it is not found.
+     */
+    private static boolean skipPastCursor(JsonParser parser, AuditEventQuery query, AuditEventQuery.Positions positions) throws IOException {
+        if (!parser.getParsingContext().inArray()) {
+            return false;
+        }
+        while (parser.nextToken() == JsonToken.START_OBJECT) {
+            JsonNode event = parser.readValueAsTree();
+            if (query.isCursor(event, positions.next(event))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /*
+     * Reads up to the next event in the top level array that the query selects, or null at the end of the array.
+     * Every event read is counted in positions.
+     */
+    private static JsonNode nextMatch(JsonParser parser, AuditEventQuery query, AuditEventQuery.Positions positions) throws IOException {
+        if (!parser.getParsingContext().inArray()) {
+            return null;
+        }
+        while (parser.nextToken() == JsonToken.START_OBJECT) {
+            JsonNode event = parser.readValueAsTree();
+            positions.next(event);
+            if (query.test(event)) {
+                return event;
+            }
+        }
+        return null;
+    }
+}
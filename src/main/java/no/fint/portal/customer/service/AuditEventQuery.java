@@ -0,0 +1,197 @@
+package no.fint.portal.customer.service;
+
+import com.fasterxml.jackson.core.JsonPointer;
+import com.fasterxml.jackson.databind.JsonNode;
+import lombok.Getter;
+import no.fint.portal.customer.exception.InvalidQueryException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.function.Predicate;
+
+/**
+ * Selection of audit events: a value filter, a time window on {@code timestamp} and a page.
+ * The cursor is the opaque form of the position of the last event on the previous page: its {@code timestamp},
+ * its index among the events in a row with that timestamp, and its {@code corrId}, empty if it has none. A page
+ * continues right after that event, so events added upstream in the meantime do not shift the pages, and events
+ * that share timestamp and {@code corrId} are told apart by the index.
+ */
+@Getter
+public class AuditEventQuery {
+
+    public static final int MAX_LIMIT = 1000;
+
+    private static final String CURSOR_PREFIX = "after:";
+    private static final String ID = "corrId";
+    private static final String TIMESTAMP = "timestamp";
+
+    private final Predicate<JsonNode> filter;
+    private final Instant from;
+    private final Instant to;
+    private final Integer limit;
+    private final Long cursorTimestamp;
+    private final Integer cursorIndex;
+    private final String cursorId;
+
+    private AuditEventQuery(Predicate<JsonNode> filter, Instant from, Instant to, Integer limit, Long cursorTimestamp, Integer cursorIndex, String cursorId) {
+        this.filter = filter;
+        this.from = from;
+        this.to = to;
+        this.limit = limit;
+        this.cursorTimestamp = cursorTimestamp;
+        this.cursorIndex = cursorIndex;
+        this.cursorId = cursorId;
+    }
+
+    public static AuditEventQuery of(String filter, Instant from, Instant to, Integer limit, String cursor) {
+        if (limit != null && (limit < 1 || limit > MAX_LIMIT)) {
+            throw new InvalidQueryException("Limit must be between 1 and " + MAX_LIMIT);
+        }
+        if (from != null && to != null && !from.isBefore(to)) {
+            throw new InvalidQueryException("from must be before to");
+        }
+        Predicate<JsonNode> valueFilter = filter == null ? null : valueFilter(filter);
+        if (cursor == null) {
+            return new AuditEventQuery(valueFilter, from, to, limit, null, null, null);
+        }
+        String[] position = decodeCursor(cursor);
+        return new AuditEventQuery(valueFilter, from, to, limit, parseLong(position[0], cursor), parseIndex(position[1], cursor), position[2]);
+    }
+
+    /**
+     * Without filter, window or page the upstream body can be passed through as is.
+     */
+    public boolean isPassThrough() {
+        return filter == null && from == null && to == null && limit == null && cursorId == null;
+    }
+
+    public boolean hasCursor() {
+        return cursorId != null;
+    }
+
+    /**
+     * Whether {@code event}, at {@code index} among the events in a row with its timestamp, is the last event of the
+     * previous page.
+     */
+    public boolean isCursor(JsonNode event, int index) {
+        return timestampOf(event) == cursorTimestamp && index == cursorIndex && cursorId.equals(idOf(event));
+    }
+
+    public boolean test(JsonNode event) {
+        if (from != null || to != null) {
+            JsonNode timestamp = event.get(TIMESTAMP);
+            if (timestamp == null || !timestamp.canConvertToLong()) {
+                return false;
+            }
+            if (from != null && timestamp.asLong() < from.toEpochMilli()) {
+                return false;
+            }
+            if (to != null && timestamp.asLong() >= to.toEpochMilli()) {
+                return false;
+            }
+        }
+        return filter == null || filter.test(event);
+    }
+
+    /**
+     * The cursor of the page following {@code last}, at {@code index} among the events in a row with its timestamp.
+     */
+    public static String cursorAfter(JsonNode last, int index) {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString((CURSOR_PREFIX + timestampOf(last) + ":" + index + ":" + idOf(last)).getBytes(StandardCharsets.UTF_8));
+    }
+
+    /*
+     * Both sides of the cursor read timestamp and corrId the same way, missing values included.
+     */
+    private static long timestampOf(JsonNode event) {
+        return event.path(TIMESTAMP).asLong();
+    }
+
+    private static String idOf(JsonNode event) {
+        return event.path(ID).asText("");
+    }
+
+    /*
+     * Returns the position after the prefix, timestamp, index and corrId.
+     */
+    private static String[] decodeCursor(String cursor) {
+        try {
+            String value = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            if (value.startsWith(CURSOR_PREFIX)) {
+                String[] position = value.substring(CURSOR_PREFIX.length()).split(":", 3);
+                if (position.length == 3) {
+                    return position;
+                }
+            }
+        } catch (IllegalArgumentException e) {
+            // Reported below
+        }
+        throw new InvalidQueryException("Invalid cursor: " + cursor);
+    }
+
+    private static long parseLong(String value, String cursor) {
+        try {
+            return Long.parseLong(value);
+        } catch (NumberFormatException e) {
+            throw new InvalidQueryException("Invalid cursor: " + cursor);
+        }
+    }
+
+    private static int parseIndex(String value, String cursor) {
+        try {
+            int index = Integer.parseInt(value);
+            if (index >= 0) {
+                return index;
+            }
+        } catch (NumberFormatException e) {
+            // Reported below
+        }
+        throw new InvalidQueryException("Invalid cursor: " + cursor);
+    }
+
+    /**
+     * Counts the index of each event among the events in a row with its timestamp, in the order they are read.
+     */
+    public static class Positions {
+
+        private boolean started;
+        private long timestamp;
+        private int index;
+
+        public int next(JsonNode event) {
+            long current = timestampOf(event);
+            index = started && current == timestamp ? index + 1 : 0;
+            timestamp = current;
+            started = true;
+            return index;
+        }
+
+        /**
+         * The index of the event last counted.
+         */
+        public int index() {
+            return index;
+        }
+    }
+
+    /**
+     * Parses {@code pointer=value}, e.g. {@code /corrId=1234}, into a filter on events whose value
+     * at the JSON pointer equals {@code value}.
+     */
+    private static Predicate<JsonNode> valueFilter(String expression) {
+        int separator = expression.indexOf('=');
+        if (separator < 0) {
+            throw new InvalidQueryException("Filter must be <json-pointer>=<value>: " + expression);
+        }
+        final JsonPointer pointer;
+        try {
+            pointer = JsonPointer.compile(expression.substring(0, separator));
+        } catch (IllegalArgumentException e) {
+            throw new InvalidQueryException("Invalid JSON pointer in filter: " + expression);
+        }
+        final String value = expression.substring(separator + 1);
+        return event -> value.equals(event.at(pointer).asText());
+    }
+}
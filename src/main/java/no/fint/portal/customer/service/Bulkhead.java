@@ -0,0 +1,102 @@
+package no.fint.portal.customer.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import no.fint.portal.customer.exception.BackendUnavailableException;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Caps the concurrent calls to one backend. A call beyond the limit is shed at once with a
+ * {@link BackendUnavailableException} instead of waiting for a permit.
+ */
+public class Bulkhead {
+
+    private final String backend;
+    private final int limit;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final Duration retryAfter;
+    private final Counter shed;
+
+    public Bulkhead(String backend, int limit, Duration retryAfter, MeterRegistry meterRegistry) {
+        this.backend = backend;
+        this.limit = limit;
+        this.retryAfter = retryAfter;
+        shed = Counter.builder("fint.bulkhead.shed")
+                .description("Requests rejected because the backend was saturated")
+                .tag("backend", backend)
+                .register(meterRegistry);
+        Gauge.builder("fint.bulkhead.in.flight", this, Bulkhead::getInFlight)
+                .tag("backend", backend)
+                .register(meterRegistry);
+        Gauge.builder("fint.bulkhead.limit", this, Bulkhead::getLimit)
+                .tag("backend", backend)
+                .register(meterRegistry);
+    }
+
+    public <T> T call(Supplier<T> call) {
+        long start = acquire();
+        try {
+            return call.get();
+        } finally {
+            release(start);
+        }
+    }
+
+    public void run(Runnable call) {
+        call(() -> {
+            call.run();
+            return null;
+        });
+    }
+
+    /**
+     * Takes a permit, which must be given back with {@link #release(long)}, or sheds the request.
+     *
+     * @return the start of the call in {@link System#nanoTime()}
+     */
+    public long acquire() {
+        int current;
+        do {
+            current = inFlight.get();
+            if (current >= getLimit()) {
+                throw shed();
+            }
+        } while (!inFlight.compareAndSet(current, current + 1));
+        return System.nanoTime();
+    }
+
+    public void release(long start) {
+        int current = inFlight.getAndDecrement();
+        onCompleted(System.nanoTime() - start, current);
+    }
+
+    /**
+     * Called with the round trip time of every call and the number of calls in flight when it completed.
+     */
+    protected void onCompleted(long rttNanos, int inFlight) {
+    }
+
+    /**
+     * Counts a request rejected on behalf of this backend, e.g. by a full executor queue.
+     */
+    public BackendUnavailableException shed() {
+        shed.increment();
+        return new BackendUnavailableException(backend, retryAfter);
+    }
+
+    public String getBackend() {
+        return backend;
+    }
+
+    public int getLimit() {
+        return limit;
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+}
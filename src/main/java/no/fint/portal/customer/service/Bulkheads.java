@@ -0,0 +1,47 @@
+package no.fint.portal.customer.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import no.fint.portal.customer.config.BulkheadConfig;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * One {@link Bulkhead} per backend, so a hung upstream only exhausts its own share of the servlet threads.
+ */
+@Slf4j
+@Component
+public class Bulkheads {
+
+    public static final String LDAP = "ldap";
+    public static final String EVENTS = "events";
+    public static final String ADMIN = "admin";
+
+    private final Map<String, Bulkhead> bulkheads;
+
+    public Bulkheads(BulkheadConfig bulkheadConfig, MeterRegistry meterRegistry) {
+        bulkheads = Stream.of(LDAP, EVENTS, ADMIN)
+                .collect(Collectors.toMap(Function.identity(), backend -> {
+                    int limit = bulkheadConfig.getLimit(backend);
+                    BulkheadConfig.Adaptive adaptive = bulkheadConfig.getAdaptive().get(backend);
+                    if (adaptive != null) {
+                        log.info("Bulkhead {}: adaptive, {} to {} concurrent calls", backend, adaptive.getMinLimit(), limit);
+                        return new AdaptiveBulkhead(backend, limit, adaptive, bulkheadConfig.getRetryAfter(), meterRegistry);
+                    }
+                    log.info("Bulkhead {}: {} concurrent calls", backend, limit);
+                    return new Bulkhead(backend, limit, bulkheadConfig.getRetryAfter(), meterRegistry);
+                }));
+    }
+
+    public Bulkhead get(String backend) {
+        Bulkhead bulkhead = bulkheads.get(backend);
+        if (bulkhead == null) {
+            throw new IllegalArgumentException("No such backend: " + backend);
+        }
+        return bulkhead;
+    }
+}
@@ -0,0 +1,101 @@
+package no.fint.portal.customer.service;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import no.fint.portal.customer.exception.BackendUnavailableException;
+
+import java.time.Duration;
+import java.util.Locale;
+
+/**
+ * Stops calling a backend that keeps failing.
+ * <p>
+ * After {@code failureThreshold} consecutive failures the circuit opens and no calls are permitted for
+ * {@code openDuration}. The next call is then let through as a trial while the circuit is half open: a success
+ * closes the circuit, a failure opens it again.
+ */
+@Slf4j
+public class CircuitBreaker {
+
+    public enum State {
+        CLOSED, OPEN, HALF_OPEN
+    }
+
+    private final String backend;
+    private final int failureThreshold;
+    private final long openNanos;
+
+    // guarded by this
+    private State state = State.CLOSED;
+    private int failures;
+    private long openedAt;
+
+    public CircuitBreaker(String backend, int failureThreshold, Duration openDuration, MeterRegistry meterRegistry) {
+        this.backend = backend;
+        this.failureThreshold = failureThreshold;
+        this.openNanos = openDuration.toNanos();
+        for (State value : State.values()) {
+            Gauge.builder("fint.circuit.state", this, it -> it.getState() == value ? 1 : 0)
+                    .description("1 for the current state of the circuit breaker")
+                    .tag("backend", backend)
+                    .tag("state", value.name().toLowerCase(Locale.ROOT))
+                    .register(meterRegistry);
+        }
+    }
+
+    /**
+     * Whether a call may go through. A permitted call must be followed by exactly one of
+     * {@link #onSuccess()}, {@link #onFailure()} or {@link #onIgnored()}.
+     */
+    public synchronized boolean tryAcquire() {
+        switch (state) {
+            case CLOSED:
+                return true;
+            case OPEN:
+                if (System.nanoTime() - openedAt >= openNanos) {
+                    state = State.HALF_OPEN;
+                    log.info("Circuit {} half open, trying one call", backend);
+                    return true;
+                }
+                return false;
+            default:
+                return false;
+        }
+    }
+
+    public synchronized void onSuccess() {
+        if (state != State.CLOSED) {
+            log.info("Circuit {} closed", backend);
+        }
+        state = State.CLOSED;
+        failures = 0;
+    }
+
+    public synchronized void onFailure() {
+        if (state == State.HALF_OPEN || (state == State.CLOSED && ++failures >= failureThreshold)) {
+            log.warn("Circuit {} open for {} seconds", backend, Duration.ofNanos(openNanos).toSeconds());
+            state = State.OPEN;
+            openedAt = System.nanoTime();
+            failures = 0;
+        }
+    }
+
+    /**
+     * The call neither proved nor disproved that the backend is available. A trial call gives way to the next one.
+     */
+    public synchronized void onIgnored() {
+        if (state == State.HALF_OPEN) {
+            state = State.OPEN;
+        }
+    }
+
+    public synchronized State getState() {
+        return state;
+    }
+
+    public synchronized BackendUnavailableException unavailable() {
+        long remaining = state == State.OPEN ? openNanos - (System.nanoTime() - openedAt) : 0;
+        return new BackendUnavailableException(backend, Duration.ofNanos(Math.max(remaining, Duration.ofSeconds(1).toNanos())));
+    }
+}
@@ -0,0 +1,207 @@
+package no.fint.portal.customer.service;
+
+import com.google.common.collect.BiMap;
+import com.google.common.collect.HashBiMap;
+import com.google.common.hash.HashCode;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.function.IntBinaryOperator;
+import java.util.function.UnaryOperator;
+import java.util.stream.IntStream;
+
+/**
+ * Identity mapping for HMAC-MD5 masked contacts, stored in primitive arrays.
+ * <p>
+ * An 11 digit NIN is packed into a {@code long} and its hash into two {@code long}s. NINs are kept
+ * sorted for masking, and an index sorted by hash serves unmasking, both by binary search. Contact DNs
+ * are not stored; a DN is recognised by the contact DN template around its {@code cn}. That comes to
+ * 28 bytes per contact. Contacts that do not fit this layout are kept in an ordinary {@link BiMap}.
+ */
+public class CompactIdentityStore implements IdentityMapping {
+
+    private static final int NIN_LENGTH = 11;
+    private static final int HASH_LENGTH = 32;
+    private static final String TEMPLATE_NIN = "0".repeat(NIN_LENGTH);
+
+    private final long[] nins;
+    private final long[] hashHi;
+    private final long[] hashLo;
+    private final int[] byHash;
+    private final BiMap<String, String> overflow;
+    private final String dnPrefix;
+    private final String dnSuffix;
+
+    private CompactIdentityStore(Builder builder, int[] packed, BiMap<String, String> overflow) {
+        int[] byNin = sort(packed, (a, b) -> Long.compare(builder.nins[a], builder.nins[b]));
+        nins = Arrays.stream(byNin).mapToLong(i -> builder.nins[i]).toArray();
+        hashHi = Arrays.stream(byNin).mapToLong(i -> builder.hashHi[i]).toArray();
+        hashLo = Arrays.stream(byNin).mapToLong(i -> builder.hashLo[i]).toArray();
+        byHash = sort(IntStream.range(0, nins.length).toArray(), this::compareHash);
+        for (int i = 1; i < nins.length; i++) {
+            if (nins[i - 1] == nins[i] || compareHash(byHash[i - 1], byHash[i]) == 0) {
+                throw new IllegalArgumentException("Duplicate identity in contact directory");
+            }
+        }
+        this.overflow = overflow;
+        dnPrefix = builder.dnPrefix;
+        dnSuffix = builder.dnSuffix;
+    }
+
+    @Override
+    public String mask(String identity) {
+        String masked = overflow.get(identity);
+        if (masked != null || identity == null) {
+            return masked;
+        }
+        int i = findNin(identity);
+        if (i >= 0) {
+            return hex(i);
+        }
+        i = findNin(getCn(identity, NIN_LENGTH));
+        if (i >= 0) {
+            return dnPrefix + hex(i) + dnSuffix;
+        }
+        return null;
+    }
+
+    @Override
+    public String unmask(String masked) {
+        String identity = overflow.inverse().get(masked);
+        if (identity != null || masked == null) {
+            return identity;
+        }
+        int i = findHash(masked);
+        if (i >= 0) {
+            return nin(i);
+        }
+        i = findHash(getCn(masked, HASH_LENGTH));
+        if (i >= 0) {
+            return dnPrefix + nin(i) + dnSuffix;
+        }
+        return null;
+    }
+
+    @Override
+    public int size() {
+        return 2 * nins.length + overflow.size();
+    }
+
+    private int findNin(String value) {
+        if (value == null || value.length() != NIN_LENGTH || !value.chars().allMatch(c -> c >= '0' && c <= '9')) {
+            return -1;
+        }
+        int i = Arrays.binarySearch(nins, Long.parseLong(value));
+        return i < 0 ? -1 : i;
+    }
+
+    private int findHash(String value) {
+        if (value == null || value.length() != HASH_LENGTH || !value.chars().allMatch(c -> (c >= '0' && c <= '9') || (c >= 'a' && c <= 'f'))) {
+            return -1;
+        }
+        long hi = Long.parseUnsignedLong(value, 0, 16, 16);
+        long lo = Long.parseUnsignedLong(value, 16, 32, 16);
+        int low = 0;
+        int high = byHash.length - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int i = byHash[mid];
+            int c = Long.compareUnsigned(hashHi[i], hi);
+            if (c == 0) {
+                c = Long.compareUnsigned(hashLo[i], lo);
+            }
+            if (c < 0) {
+                low = mid + 1;
+            } else if (c > 0) {
+                high = mid - 1;
+            } else {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private String getCn(String dn, int length) {
+        if (dnPrefix == null || dn.length() != dnPrefix.length() + length + dnSuffix.length()
+                || !dn.startsWith(dnPrefix) || !dn.endsWith(dnSuffix)) {
+            return null;
+        }
+        return dn.substring(dnPrefix.length(), dnPrefix.length() + length);
+    }
+
+    private int compareHash(int a, int b) {
+        int c = Long.compareUnsigned(hashHi[a], hashHi[b]);
+        return c != 0 ? c : Long.compareUnsigned(hashLo[a], hashLo[b]);
+    }
+
+    private String hex(int i) {
+        return pad(Long.toHexString(hashHi[i]), 16) + pad(Long.toHexString(hashLo[i]), 16);
+    }
+
+    private String nin(int i) {
+        return pad(Long.toString(nins[i]), NIN_LENGTH);
+    }
+
+    private static String pad(String value, int length) {
+        return "0".repeat(length - value.length()) + value;
+    }
+
+    private static int[] sort(int[] indexes, IntBinaryOperator comparator) {
+        return Arrays.stream(indexes).boxed()
+                .sorted(comparator::applyAsInt)
+                .mapToInt(Integer::intValue)
+                .toArray();
+    }
+
+    /**
+     * Collects one contact per slot. {@link #set} may be called concurrently for different slots.
+     */
+    public static class Builder {
+
+        private final long[] nins;
+        private final long[] hashHi;
+        private final long[] hashLo;
+        private final String[][] unpacked;
+        private final UnaryOperator<String> contactDn;
+        private final String dnPrefix;
+        private final String dnSuffix;
+
+        public Builder(int size, UnaryOperator<String> contactDn) {
+            nins = new long[size];
+            hashHi = new long[size];
+            hashLo = new long[size];
+            unpacked = new String[size][];
+            this.contactDn = contactDn;
+            String template = contactDn.apply(TEMPLATE_NIN);
+            int start = template.indexOf(TEMPLATE_NIN);
+            dnPrefix = start < 0 ? null : template.substring(0, start);
+            dnSuffix = start < 0 ? null : template.substring(start + NIN_LENGTH);
+        }
+
+        public void set(int slot, String nin, String dn, HashCode hash) {
+            if (dnPrefix != null && hash.bits() == 128 && nin.length() == NIN_LENGTH
+                    && nin.chars().allMatch(c -> c >= '0' && c <= '9')
+                    && dn.equals(dnPrefix + nin + dnSuffix)) {
+                ByteBuffer bytes = ByteBuffer.wrap(hash.asBytes());
+                nins[slot] = Long.parseLong(nin);
+                hashHi[slot] = bytes.getLong();
+                hashLo[slot] = bytes.getLong();
+            } else {
+                String masked = hash.toString();
+                unpacked[slot] = new String[]{nin, masked, dn, contactDn.apply(masked)};
+            }
+        }
+
+        public CompactIdentityStore build() {
+            BiMap<String, String> overflow = HashBiMap.create();
+            for (String[] contact : unpacked) {
+                if (contact != null) {
+                    overflow.put(contact[0], contact[1]);
+                    overflow.put(contact[2], contact[3]);
+                }
+            }
+            int[] packed = IntStream.range(0, unpacked.length).filter(i -> unpacked[i] == null).toArray();
+            return new CompactIdentityStore(this, packed, overflow);
+        }
+    }
+}
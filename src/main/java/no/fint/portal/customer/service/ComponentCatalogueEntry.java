@@ -0,0 +1,26 @@
+package no.fint.portal.customer.service;
+
+import lombok.Getter;
+import no.fint.portal.model.ComponentConfiguration;
+import no.fint.portal.model.component.Component;
+import org.springframework.beans.BeanUtils;
+
+import java.util.Set;
+
+/**
+ * A component from LDAP joined with its configuration from the admin API, if it has one.
+ * The entry holds its own copy of the component.
+ */
+@Getter
+public class ComponentCatalogueEntry {
+    private final Component component;
+    private final ComponentConfiguration configuration;
+    private final Set<ComponentStatus> statuses;
+
+    public ComponentCatalogueEntry(Component component, ComponentConfiguration configuration) {
+        this.component = new Component();
+        BeanUtils.copyProperties(component, this.component);
+        this.configuration = configuration;
+        this.statuses = ComponentStatus.of(configuration);
+    }
+}
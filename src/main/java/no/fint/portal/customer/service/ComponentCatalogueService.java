@@ -0,0 +1,196 @@
+package no.fint.portal.customer.service;
+
+import lombok.extern.slf4j.Slf4j;
+import no.fint.portal.exceptions.EntityNotFoundException;
+import no.fint.portal.model.ComponentConfiguration;
+import no.fint.portal.model.component.Component;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Components joined with their configurations, indexed by status.
+ * <p>
+ * Reads are served from an immutable catalogue. It is rebuilt on the next read after a change, and only
+ * the side that changed is reloaded: components named in a {@link ComponentsChangedEvent} are fetched
+ * again one by one, and configurations when their ETag changes. Unchanged entries are reused.
+ * <p>
+ * Configurations are checked for changes at most once per {@code fint.portal.admin.refresh}. If the admin
+ * API cannot be reached, the catalogue is built from LDAP alone, with every component unreleased.
+ */
+@Slf4j
+@Service
+public class ComponentCatalogueService {
+
+    private final PortalApiService portalApiService;
+    private final ComponentConfigurationService componentConfigurationService;
+    private final long maxAgeNanos;
+    private final long configurationsCheckNanos;
+    private final Set<String> changedComponents = ConcurrentHashMap.newKeySet();
+    private volatile boolean allComponentsChanged;
+    private volatile Catalogue catalogue;
+
+    public ComponentCatalogueService(
+            PortalApiService portalApiService,
+            ComponentConfigurationService componentConfigurationService,
+            @Value("${fint.portal.catalogue.max-age:PT1H}") Duration maxAge,
+            @Value("${fint.portal.admin.refresh:PT10M}") Duration configurationsCheck) {
+        this.portalApiService = portalApiService;
+        this.componentConfigurationService = componentConfigurationService;
+        this.maxAgeNanos = maxAge.toNanos();
+        this.configurationsCheckNanos = configurationsCheck.toNanos();
+    }
+
+    public List<ComponentCatalogueEntry> getCatalogue() {
+        return getCurrent().entries;
+    }
+
+    public List<ComponentCatalogueEntry> getCatalogue(ComponentStatus status) {
+        return getCurrent().byStatus.getOrDefault(status, Collections.emptyList());
+    }
+
+    @EventListener
+    public void onComponentsChanged(ComponentsChangedEvent event) {
+        if (event.getDn() == null) {
+            allComponentsChanged = true;
+        } else {
+            changedComponents.add(event.getDn());
+        }
+    }
+
+    private Catalogue getCurrent() {
+        final Catalogue current = catalogue;
+        if (current != null && !isChanged(current) && System.nanoTime() - current.configurationsCheckedAt <= configurationsCheckNanos) {
+            return current;
+        }
+        final Configurations configurations = getConfigurations();
+        if (current != null && !isChanged(current) && current.configurationsETag.equals(configurations.etag)) {
+            current.configurationsCheckedAt = System.nanoTime();
+            return current;
+        }
+        synchronized (this) {
+            return rebuild(configurations);
+        }
+    }
+
+    private boolean isChanged(Catalogue current) {
+        return allComponentsChanged
+                || !changedComponents.isEmpty()
+                || System.nanoTime() - current.builtAt > maxAgeNanos;
+    }
+
+    private Configurations getConfigurations() {
+        try {
+            ComponentConfigurationService.Snapshot snapshot = componentConfigurationService.getSnapshot();
+            return new Configurations(snapshot.getConfigurations(), snapshot.getETag());
+        } catch (RuntimeException e) {
+            log.warn("Unable to get component configurations, building the catalogue from LDAP only: {}", e.getMessage());
+            return Configurations.NONE;
+        }
+    }
+
+    private Catalogue rebuild(Configurations configurations) {
+        final Catalogue current = catalogue;
+        if (current != null && !isChanged(current) && current.configurationsETag.equals(configurations.etag)) {
+            return current;
+        }
+
+        final boolean reloadAll = current == null || allComponentsChanged || System.nanoTime() - current.builtAt > maxAgeNanos;
+        allComponentsChanged = false;
+        final Set<String> changed = new HashSet<>(changedComponents);
+        changedComponents.removeAll(changed);
+
+        final List<Component> components;
+        if (reloadAll) {
+            components = portalApiService.getComponents();
+        } else {
+            components = new ArrayList<>(current.components.size());
+            for (Component component : current.components) {
+                if (!changed.contains(component.getDn())) {
+                    components.add(component);
+                    continue;
+                }
+                try {
+                    components.add(portalApiService.getComponentByDn(component.getDn()));
+                } catch (EntityNotFoundException e) {
+                    log.info("Component {} removed from catalogue", component.getDn());
+                }
+            }
+        }
+
+        final Map<String, ComponentConfiguration> configurationIndex = new HashMap<>();
+        for (ComponentConfiguration configuration : configurations.configurations) {
+            if (configuration.getDn() != null) configurationIndex.putIfAbsent(configuration.getDn(), configuration);
+            if (configuration.getName() != null) configurationIndex.putIfAbsent(configuration.getName(), configuration);
+        }
+
+        final List<ComponentCatalogueEntry> entries = new ArrayList<>(components.size());
+        for (Component component : components) {
+            ComponentConfiguration configuration = configurationIndex.getOrDefault(component.getDn(), configurationIndex.get(component.getName()));
+            ComponentCatalogueEntry entry = current == null ? null : current.reusable(component, configuration);
+            entries.add(entry == null ? new ComponentCatalogueEntry(component, configuration) : entry);
+        }
+
+        final Catalogue next = new Catalogue(components, entries, configurations.etag);
+        log.debug("Catalogue rebuilt with {} components ({} reloaded)", entries.size(), reloadAll ? "all" : changed.size());
+        catalogue = next;
+        return next;
+    }
+
+    private static final class Configurations {
+        private static final Configurations NONE = new Configurations(Collections.emptyList(), "");
+
+        private final List<ComponentConfiguration> configurations;
+        private final String etag;
+
+        private Configurations(List<ComponentConfiguration> configurations, String etag) {
+            this.configurations = configurations;
+            this.etag = etag;
+        }
+    }
+
+    /*
+     * Entries hold copies of the components, the cached instances they were made from are kept to tell
+     * whether an entry can be reused.
+     */
+    private static final class Catalogue {
+        private final List<Component> components;
+        private final List<ComponentCatalogueEntry> entries;
+        private final Map<String, Component> sources = new HashMap<>();
+        private final Map<String, ComponentCatalogueEntry> byDn = new HashMap<>();
+        private final Map<ComponentStatus, List<ComponentCatalogueEntry>> byStatus = new EnumMap<>(ComponentStatus.class);
+        private final String configurationsETag;
+        private final long builtAt = System.nanoTime();
+        private volatile long configurationsCheckedAt = builtAt;
+
+        private Catalogue(List<Component> components, List<ComponentCatalogueEntry> entries, String configurationsETag) {
+            this.components = components;
+            this.entries = Collections.unmodifiableList(entries);
+            this.configurationsETag = configurationsETag;
+            for (Component component : components) {
+                sources.put(component.getDn(), component);
+            }
+            for (ComponentCatalogueEntry entry : entries) {
+                byDn.put(entry.getComponent().getDn(), entry);
+                entry.getStatuses().forEach(status -> byStatus.computeIfAbsent(status, it -> new ArrayList<>()).add(entry));
+            }
+            byStatus.replaceAll((status, list) -> Collections.unmodifiableList(list));
+        }
+
+        private ComponentCatalogueEntry reusable(Component component, ComponentConfiguration configuration) {
+            ComponentCatalogueEntry entry = byDn.get(component.getDn());
+            return entry != null && sources.get(component.getDn()) == component && entry.getConfiguration() == configuration ? entry : null;
+        }
+    }
+}
@@ -0,0 +1,164 @@
+package no.fint.portal.customer.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.hash.Hashing;
+import lombok.extern.slf4j.Slf4j;
+import no.fint.portal.model.ComponentConfiguration;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Service;
+import org.springframework.web.client.RestTemplate;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+
+/**
+ * Core component configurations from the admin API, served stale-while-revalidate.
+ * <p>
+ * The first read loads synchronously. Afterwards the current copy is always served, and a read after
+ * {@code fint.portal.admin.refresh} starts one background revalidation with If-None-Match and
+ * If-Modified-Since. If the admin API fails, the last good copy stays in service.
+ */
+@Slf4j
+@Service
+public class ComponentConfigurationService {
+
+    private static final ParameterizedTypeReference<List<ComponentConfiguration>> TYPE = new ParameterizedTypeReference<>() {
+    };
+
+    private final RestTemplate restTemplate;
+    private final ObjectMapper objectMapper;
+    private final RequestCoalescer requestCoalescer;
+    private final Bulkhead bulkhead;
+    private final TaskExecutor taskExecutor;
+    private final String rootUri;
+    private final long refreshNanos;
+    private final AtomicBoolean refreshing = new AtomicBoolean();
+    private volatile Snapshot snapshot;
+
+    public ComponentConfigurationService(
+            RestTemplate restTemplate,
+            ObjectMapper objectMapper,
+            RequestCoalescer requestCoalescer,
+            Bulkheads bulkheads,
+            @Qualifier("applicationTaskExecutor") TaskExecutor taskExecutor,
+            @Value("${fint.portal.admin.uri}") String rootUri,
+            @Value("${fint.portal.admin.refresh:PT10M}") Duration refresh) {
+        this.restTemplate = restTemplate;
+        this.objectMapper = objectMapper;
+        this.requestCoalescer = requestCoalescer;
+        this.bulkhead = bulkheads.get(Bulkheads.ADMIN);
+        this.taskExecutor = taskExecutor;
+        this.rootUri = rootUri;
+        this.refreshNanos = refresh.toNanos();
+    }
+
+    public List<ComponentConfiguration> getComponentConfigurations() {
+        return getSnapshot().getConfigurations();
+    }
+
+    public Snapshot getSnapshot() {
+        Snapshot current = snapshot;
+        if (current == null) {
+            return requestCoalescer.execute(List.of("componentConfigurations"), () -> {
+                Snapshot loaded = snapshot;
+                return loaded == null ? fetch(null) : loaded;
+            });
+        }
+        if (System.nanoTime() - current.checkedAt > refreshNanos && refreshing.compareAndSet(false, true)) {
+            CompletableFuture.runAsync(() -> fetch(current), taskExecutor)
+                    .whenComplete((result, e) -> {
+                        if (e != null) {
+                            log.warn("Unable to refresh component configurations, serving the last good copy: {}", e.getMessage());
+                            if (snapshot == current) {
+                                snapshot = current.checked();
+                            }
+                        }
+                        refreshing.set(false);
+                    });
+        }
+        return current;
+    }
+
+    private Snapshot fetch(Snapshot current) {
+        final HttpHeaders headers = new HttpHeaders();
+        if (current != null) {
+            if (current.upstreamETag != null) {
+                headers.setIfNoneMatch(current.upstreamETag);
+            }
+            if (current.lastModified != null) {
+                headers.set(HttpHeaders.IF_MODIFIED_SINCE, current.lastModified);
+            }
+        }
+        final ResponseEntity<List<ComponentConfiguration>> response = bulkhead.call(() -> restTemplate.exchange(
+                rootUri + "/api/components/configurations", HttpMethod.GET, new HttpEntity<>(headers), TYPE));
+
+        final Snapshot next;
+        if (current != null && response.getStatusCode() == HttpStatus.NOT_MODIFIED) {
+            log.debug("Component configurations not modified");
+            next = current.checked();
+        } else {
+            final List<ComponentConfiguration> configurations = Collections.unmodifiableList(Objects.requireNonNull(response.getBody())
+                    .stream()
+                    .filter(ComponentConfiguration::isCore)
+                    .collect(Collectors.toList()));
+            next = new Snapshot(configurations, etag(configurations),
+                    response.getHeaders().getETag(),
+                    response.getHeaders().getFirst(HttpHeaders.LAST_MODIFIED));
+            log.info("Loaded {} component configurations", configurations.size());
+        }
+        snapshot = next;
+        return next;
+    }
+
+    private String etag(List<ComponentConfiguration> configurations) {
+        try {
+            return "\"" + Hashing.sha256().hashBytes(objectMapper.writeValueAsBytes(configurations)) + "\"";
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Configurations together with their strong ETag.
+     */
+    public static final class Snapshot {
+        private final List<ComponentConfiguration> configurations;
+        private final String etag;
+        private final String upstreamETag;
+        private final String lastModified;
+        private final long checkedAt = System.nanoTime();
+
+        private Snapshot(List<ComponentConfiguration> configurations, String etag, String upstreamETag, String lastModified) {
+            this.configurations = configurations;
+            this.etag = etag;
+            this.upstreamETag = upstreamETag;
+            this.lastModified = lastModified;
+        }
+
+        public List<ComponentConfiguration> getConfigurations() {
+            return configurations;
+        }
+
+        public String getETag() {
+            return etag;
+        }
+
+        private Snapshot checked() {
+            return new Snapshot(configurations, etag, upstreamETag, lastModified);
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package no.fint.portal.customer.service;
+
+import no.fint.portal.model.ComponentConfiguration;
+
+import java.util.EnumSet;
+import java.util.Set;
+
+public enum ComponentStatus {
+    PRODUCTION,
+    BETA,
+    PLAY_WITH_FINT,
+    UNRELEASED;
+
+    public static Set<ComponentStatus> of(ComponentConfiguration configuration) {
+        final Set<ComponentStatus> statuses = EnumSet.noneOf(ComponentStatus.class);
+        if (configuration != null) {
+            if (configuration.isInProduction()) statuses.add(PRODUCTION);
+            if (configuration.isInBeta()) statuses.add(BETA);
+            if (configuration.isInPlayWithFint()) statuses.add(PLAY_WITH_FINT);
+        }
+        if (statuses.isEmpty()) statuses.add(UNRELEASED);
+        return statuses;
+    }
+}
@@ -0,0 +1,11 @@
+package no.fint.portal.customer.service;
+
+import lombok.Value;
+
+/**
+ * Published when a component, or with a {@code null} DN any number of components, change in LDAP.
+ */
+@Value
+public class ComponentsChangedEvent {
+    String dn;
+}
@@ -0,0 +1,57 @@
+package no.fint.portal.customer.service;
+
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.function.BiConsumer;
+import java.util.function.Supplier;
+
+/**
+ * Resolves lookups that do not depend on each other concurrently on the lookup executor, which is separate
+ * from the LDAP executor serving asynchronous reads. When all its threads are busy, lookups run on the calling thread.
+ * The first lookup to fail, e.g. with an {@link no.fint.portal.exceptions.EntityNotFoundException}, is rethrown
+ * as is without waiting for the others. The action runs on the calling thread once all lookups have succeeded.
+ */
+@Component
+public class ConcurrentLookup {
+
+    private final ExecutorService lookupExecutor;
+
+    public ConcurrentLookup(@Qualifier("lookupExecutor") ExecutorService lookupExecutor) {
+        this.lookupExecutor = lookupExecutor;
+    }
+
+    public <A, B> void resolve(Supplier<A> first, Supplier<B> second, BiConsumer<? super A, ? super B> action) {
+        CompletableFuture<A> a = CompletableFuture.supplyAsync(first, lookupExecutor);
+        CompletableFuture<B> b;
+        try {
+            b = CompletableFuture.supplyAsync(second, lookupExecutor);
+        } catch (RuntimeException e) {
+            a.cancel(false);
+            throw e;
+        }
+        awaitAll(a, b);
+        action.accept(a.join(), b.join());
+    }
+
+    private static void awaitAll(CompletableFuture<?>... futures) {
+        CompletableFuture<Object> failure = new CompletableFuture<>();
+        for (CompletableFuture<?> future : futures) {
+            future.whenComplete((result, e) -> {
+                if (e != null) {
+                    failure.completeExceptionally(e);
+                }
+            });
+        }
+        try {
+            Futures.join(CompletableFuture.anyOf(CompletableFuture.allOf(futures), failure));
+        } catch (RuntimeException | Error e) {
+            for (CompletableFuture<?> future : futures) {
+                future.cancel(false);
+            }
+            throw e;
+        }
+    }
+}
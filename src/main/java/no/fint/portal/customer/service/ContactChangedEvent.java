@@ -0,0 +1,11 @@
+package no.fint.portal.customer.service;
+
+import lombok.Value;
+
+/**
+ * Published when the roles or organisation links of a contact change.
+ */
+@Value
+public class ContactChangedEvent {
+    String nin;
+}
@@ -0,0 +1,47 @@
+package no.fint.portal.customer.service;
+
+import lombok.Getter;
+import no.fint.portal.customer.exception.InvalidQueryException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Position in the contact listing: the number of contacts on the pages before and the masked NIN of the last of
+ * them. The NIN tells whether the directory has shifted under the cursor, and it is the form the client has already
+ * seen.
+ */
+@Getter
+public class ContactCursor {
+
+    private static final String CURSOR_PREFIX = "at:";
+
+    private final int offset;
+    private final String lastNin;
+
+    public ContactCursor(int offset, String lastNin) {
+        this.offset = offset;
+        this.lastNin = lastNin;
+    }
+
+    public static ContactCursor of(String cursor) {
+        try {
+            String value = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separator = value.indexOf(':', CURSOR_PREFIX.length());
+            if (value.startsWith(CURSOR_PREFIX) && separator > 0 && separator < value.length() - 1) {
+                int offset = Integer.parseInt(value.substring(CURSOR_PREFIX.length(), separator));
+                if (offset > 0) {
+                    return new ContactCursor(offset, value.substring(separator + 1));
+                }
+            }
+        } catch (IllegalArgumentException e) {
+            // Reported below, NumberFormatException included
+        }
+        throw new InvalidQueryException("Invalid cursor: " + cursor);
+    }
+
+    public String encode() {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString((CURSOR_PREFIX + offset + ":" + lastNin).getBytes(StandardCharsets.UTF_8));
+    }
+}
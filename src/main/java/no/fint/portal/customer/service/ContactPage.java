@@ -0,0 +1,23 @@
+package no.fint.portal.customer.service;
+
+import lombok.Getter;
+import no.fint.portal.model.contact.Contact;
+
+import java.util.List;
+
+/**
+ * One page of masked contacts, and the cursor of the next page if there is one.
+ */
+@Getter
+public class ContactPage {
+
+    public static final int MAX_PAGE_SIZE = 1000;
+
+    private final List<Contact> contacts;
+    private final ContactCursor next;
+
+    public ContactPage(List<Contact> contacts, ContactCursor next) {
+        this.contacts = contacts;
+        this.next = next;
+    }
+}
@@ -0,0 +1,57 @@
+package no.fint.portal.customer.service;
+
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hashing;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Derives epoch keys from a shared master secret in {@code master.key} in a directory.
+ * Every replica that mounts the same secret, e.g. a Kubernetes secret volume, derives the same key
+ * for an epoch. The secret is read on every derivation, so it can be replaced without a restart.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "fint.identity.key.provider", havingValue = "directory")
+public class DirectoryKeyEpochProvider implements KeyEpochProvider {
+
+    public static final String MASTER_KEY = "master.key";
+
+    private final Path directory;
+
+    public DirectoryKeyEpochProvider(@Value("${fint.identity.key.directory}") Path directory) {
+        this.directory = directory;
+        log.info("Reading identity keys from {}", directory.resolve(MASTER_KEY));
+    }
+
+    @Override
+    public byte[] getKey(long epoch, int length) {
+        final HashFunction hashFunction = Hashing.hmacSha256(readMasterKey());
+        final ByteBuffer key = ByteBuffer.allocate(length);
+        for (int block = 0; key.hasRemaining(); block++) {
+            byte[] bytes = hashFunction.newHasher().putLong(epoch).putInt(block).hash().asBytes();
+            key.put(bytes, 0, Math.min(bytes.length, key.remaining()));
+        }
+        return key.array();
+    }
+
+    private byte[] readMasterKey() {
+        try {
+            byte[] masterKey = Files.readAllBytes(directory.resolve(MASTER_KEY));
+            if (masterKey.length == 0) {
+                throw new IllegalStateException("Empty master key in " + directory);
+            }
+            return masterKey;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package no.fint.portal.customer.service;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import no.fint.portal.customer.config.CacheConfig;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Read-through cache for LDAP entities.
+ * Loads run on the calling thread and concurrent readers of a key share one load. An entry that is
+ * evicted while it is loading is dropped together with its load, so a read after an eviction never
+ * sees data fetched before it.
+ * <p>
+ * While LDAP is unavailable, a failed load falls back to the {@link LastKnownGood} entity where one is kept.
+ * Cached entries are served as usual.
+ */
+@Slf4j
+@Component
+public class EntityCache {
+
+    public static final String ORGANISATIONS = "organisations";
+    public static final String COMPONENTS = "components";
+    public static final String CLIENTS = "clients";
+    public static final String ADAPTERS = "adapters";
+    public static final String ASSETS = "assets";
+    public static final String ACCESSES = "accesses";
+
+    private final Map<String, AsyncCache<Object, Object>> caches;
+    private final LastKnownGood lastKnownGood;
+
+    public EntityCache(CacheConfig cacheConfig, LastKnownGood lastKnownGood, MeterRegistry meterRegistry) {
+        this.lastKnownGood = lastKnownGood;
+        caches = Stream.of(ORGANISATIONS, COMPONENTS, CLIENTS, ADAPTERS, ASSETS, ACCESSES)
+                .collect(Collectors.toMap(Function.identity(), name -> {
+                    String spec = cacheConfig.getSpec(name);
+                    log.info("Cache {}: {}", name, spec);
+                    AsyncCache<Object, Object> cache = Caffeine.from(spec).recordStats().buildAsync();
+                    CaffeineCacheMetrics.monitor(meterRegistry, cache.synchronous(), name, "cacheManager", "entityCache");
+                    return cache;
+                }));
+    }
+
+    @SuppressWarnings("unchecked")
+    public <T> T get(String cacheName, Object key, Supplier<T> loader) {
+        CompletableFuture<Object> loading = new CompletableFuture<>();
+        CompletableFuture<Object> future = cache(cacheName).get(key, (k, executor) -> loading);
+        if (future == loading) {
+            try {
+                T value = loader.get();
+                loading.complete(value);
+                lastKnownGood.remember(cacheName, key, value);
+            } catch (RuntimeException | Error e) {
+                loading.completeExceptionally(e);
+            }
+        }
+        try {
+            return (T) Futures.join(future);
+        } catch (RuntimeException e) {
+            if (!LdapCalls.isUnavailable(e)) {
+                throw e;
+            }
+            return (T) lastKnownGood.recall(cacheName, key).orElseThrow(() -> e);
+        }
+    }
+
+    public void evict(String cacheName, Object... keys) {
+        cache(cacheName).synchronous().invalidateAll(Arrays.asList(keys));
+    }
+
+    public void evictAll(String cacheName) {
+        cache(cacheName).synchronous().invalidateAll();
+    }
+
+    /**
+     * Evicts all entries of an organisation scoped cache, i.e. the keys {@code orgName} and {@code orgName/...}.
+     */
+    public void evictOrganisationScope(String cacheName, String orgName) {
+        cache(cacheName).synchronous().asMap().keySet()
+                .removeIf(key -> orgName.equals(key) || String.valueOf(key).startsWith(orgName + "/"));
+    }
+
+    private AsyncCache<Object, Object> cache(String cacheName) {
+        AsyncCache<Object, Object> cache = caches.get(cacheName);
+        if (cache == null) {
+            throw new IllegalArgumentException("No such cache: " + cacheName);
+        }
+        return cache;
+    }
+}
@@ -0,0 +1,77 @@
+package no.fint.portal.customer.service;
+
+import no.fint.portal.model.contact.ContactObjectService;
+import org.springframework.ldap.support.LdapUtils;
+
+/**
+ * Stateless identity mapping based on format-preserving encryption.
+ * NINs map to {@link #MARKER} followed by the encrypted NIN, which has the same number of digits, and contact DNs
+ * map to the contact DN of the masked NIN. Every identity can be masked, and no contact directory scan is needed.
+ * <p>
+ * The cipher maps every decimal string to another one, so without the marker a real NIN would unmask to some
+ * unrelated contact. Values without the marker are rejected instead.
+ */
+public class FormatPreservingIdentityMapping implements IdentityMapping {
+
+    public static final String MARKER = "f";
+
+    private final FormatPreservingCipher cipher;
+    private final ContactObjectService contactObjectService;
+
+    public FormatPreservingIdentityMapping(FormatPreservingCipher cipher, ContactObjectService contactObjectService) {
+        this.cipher = cipher;
+        this.contactObjectService = contactObjectService;
+    }
+
+    @Override
+    public String mask(String identity) {
+        if (FormatPreservingCipher.isSupported(identity)) {
+            return maskNin(identity);
+        }
+        String nin = getContactNin(identity);
+        if (FormatPreservingCipher.isSupported(nin)) {
+            return contactObjectService.getContactDn(maskNin(nin));
+        }
+        return null;
+    }
+
+    @Override
+    public String unmask(String masked) {
+        if (isMasked(masked)) {
+            return unmaskNin(masked);
+        }
+        String nin = getContactNin(masked);
+        if (isMasked(nin)) {
+            return contactObjectService.getContactDn(unmaskNin(nin));
+        }
+        return null;
+    }
+
+    /**
+     * Identities are computed rather than stored, so there are no entries to count.
+     */
+    @Override
+    public int size() {
+        return 0;
+    }
+
+    private String maskNin(String nin) {
+        return MARKER + cipher.encrypt(nin);
+    }
+
+    private String unmaskNin(String masked) {
+        return cipher.decrypt(masked.substring(MARKER.length()));
+    }
+
+    private static boolean isMasked(String value) {
+        return value != null && value.startsWith(MARKER) && FormatPreservingCipher.isSupported(value.substring(MARKER.length()));
+    }
+
+    private static String getContactNin(String dn) {
+        try {
+            return LdapUtils.getStringValue(LdapUtils.newLdapName(dn), "cn");
+        } catch (RuntimeException e) {
+            return null;
+        }
+    }
+}
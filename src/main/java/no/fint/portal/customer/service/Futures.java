@@ -0,0 +1,28 @@
+package no.fint.portal.customer.service;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+public final class Futures {
+
+    private Futures() {
+    }
+
+    /**
+     * Waits for {@code future} and rethrows a runtime exception or error it failed with as is, instead of
+     * wrapped in a {@link CompletionException}.
+     */
+    public static <T> T join(CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            if (e.getCause() instanceof Error) {
+                throw (Error) e.getCause();
+            }
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package no.fint.portal.customer.service;
+
+import com.google.common.hash.HashFunction;
+import no.fint.portal.model.contact.Contact;
+
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.IntConsumer;
+import java.util.function.UnaryOperator;
+import java.util.stream.IntStream;
+
+/**
+ * Builds the HMAC identity map for a contact list.
+ * Hashing is spread over a fork-join pool; every contact owns one slot in the
+ * {@link CompactIdentityStore.Builder}, so the workers share no state.
+ */
+public class IdentityMapBuilder {
+
+    private static final int SERIAL_THRESHOLD = 1024;
+
+    private final ForkJoinPool pool;
+
+    public IdentityMapBuilder(ForkJoinPool pool) {
+        this.pool = pool;
+    }
+
+    public IdentityMapping build(List<Contact> contacts, HashFunction hashFunction, UnaryOperator<String> contactDn) {
+        final int size = contacts.size();
+        final CompactIdentityStore.Builder builder = new CompactIdentityStore.Builder(size, contactDn);
+
+        final IntConsumer hash = i -> {
+            Contact contact = contacts.get(i);
+            builder.set(i, contact.getNin(), contact.getDn(), hashFunction.hashUnencodedChars(contact.getNin()));
+        };
+        if (size < SERIAL_THRESHOLD || pool.getParallelism() == 1) {
+            IntStream.range(0, size).forEach(hash);
+        } else {
+            pool.submit(() -> IntStream.range(0, size).parallel().forEach(hash)).join();
+        }
+
+        return builder.build();
+    }
+}
@@ -0,0 +1,37 @@
+package no.fint.portal.customer.service;
+
+import com.google.common.collect.BiMap;
+import com.google.common.collect.ImmutableBiMap;
+
+/**
+ * Reversible mapping between real identities (NINs and contact DNs) and their masked form.
+ */
+public interface IdentityMapping {
+
+    IdentityMapping EMPTY = of(ImmutableBiMap.of());
+
+    String mask(String identity);
+
+    String unmask(String masked);
+
+    int size();
+
+    static IdentityMapping of(BiMap<String, String> map) {
+        return new IdentityMapping() {
+            @Override
+            public String mask(String identity) {
+                return map.get(identity);
+            }
+
+            @Override
+            public String unmask(String masked) {
+                return map.inverse().get(masked);
+            }
+
+            @Override
+            public int size() {
+                return map.size();
+            }
+        };
+    }
+}
@@ -1,27 +1,29 @@
 package no.fint.portal.customer.service;
 
-import com.fasterxml.jackson.databind.JsonNode;
-import com.google.common.collect.ImmutableBiMap;
 import com.google.common.hash.HashFunction;
 import com.google.common.hash.Hashing;
 import lombok.extern.slf4j.Slf4j;
+import no.fint.portal.customer.exception.InvalidQueryException;
 import no.fint.portal.model.contact.Contact;
 import no.fint.portal.model.contact.ContactObjectService;
 import no.fint.portal.model.organisation.Organisation;
 import org.springframework.beans.BeanUtils;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.boot.web.client.RestTemplateBuilder;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
 import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
 import org.springframework.stereotype.Service;
-import org.springframework.web.client.HttpClientErrorException;
-import org.springframework.web.client.RestTemplate;
 
-import java.security.SecureRandom;
-import java.util.Base64;
+import java.time.Duration;
 import java.util.List;
 import java.util.Optional;
-import java.util.concurrent.locks.ReadWriteLock;
-import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.stream.Collectors;
 
 @Service
@@ -30,73 +32,152 @@ public class IdentityMaskingService {
 
     public static final String BULLETS = "\u2022\u2022\u2022\u2022\u2022";
 
-    private ImmutableBiMap<String, String> identityMap;
-    private final ReadWriteLock readWriteLock = new ReentrantReadWriteLock();
-    private final SecureRandom random;
+    private volatile Rotation rotation;
+    private final AtomicReference<CompletableFuture<Rotation>> pending = new AtomicReference<>();
+    private final boolean formatPreserving;
+    private final long graceNanos;
+    private final long retryNanos;
+    // System.nanoTime() before which a failed build is not retried by readers, 0 after a successful build
+    private volatile long retryAt;
+    private final KeyEpochProvider keyEpochProvider;
     private final PortalApiService portalApiService;
     private final ContactObjectService contactObjectService;
+    private final IdentityMapBuilder identityMapBuilder;
+    private final ExecutorService rotationExecutor;
 
     public IdentityMaskingService(
-            RestTemplateBuilder builder,
+            KeyEpochProvider keyEpochProvider,
             PortalApiService portalApiService,
-            @Value("${fint.drand.uri:https://api.drand.sh}") String rootUri,
+            @Value("${fint.identity.mode:map}") String mode,
+            @Value("${fint.identity.rotate.parallelism:0}") int parallelism,
+            @Value("${fint.identity.rotate.grace:PT10M}") Duration grace,
+            @Value("${fint.identity.rotate.retry:PT1M}") Duration retry,
             ContactObjectService contactObjectService) {
+        this.keyEpochProvider = keyEpochProvider;
         this.portalApiService = portalApiService;
+        formatPreserving = "fpe".equalsIgnoreCase(mode);
+        log.info("Identity masking mode: {}", formatPreserving ? "fpe" : "map");
+        graceNanos = grace.toNanos();
+        retryNanos = retry.toNanos();
         this.contactObjectService = contactObjectService;
-        random = getSecureRandom(builder, rootUri);
-    }
-
-    private SecureRandom getSecureRandom(RestTemplateBuilder builder, String rootUri) {
-        try {
-            final RestTemplate restTemplate = builder.rootUri(rootUri).build();
-            final String randomness = restTemplate.getForObject("/public/latest", JsonNode.class).get("randomness").asText();
-            log.info("Randomness seed: {}", randomness);
-            return new SecureRandom(Base64.getDecoder().decode(randomness));
-        } catch (HttpClientErrorException e) {
-            log.warn("Unable to get a random seed: {}", e.getResponseBodyAsString());
-            return new SecureRandom();
-        }
+        identityMapBuilder = new IdentityMapBuilder(new ForkJoinPool(parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors()));
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("identity-rotation-");
+        threadFactory.setDaemon(true);
+        rotationExecutor = Executors.newSingleThreadExecutor(threadFactory);
     }
 
+    /**
+     * Starts building a new identity mapping on the rotation thread. The mapping is published with a single
+     * volatile write once it is complete, and readers keep the previous one until then.
+     */
     @Scheduled(cron = "${fint.identity.rotate.cron}")
     public void rotate() {
-        log.info("Rotating keys ...");
-        try {
-            readWriteLock.writeLock().lock();
-            final HashFunction hashFunction = Hashing.hmacMd5(random.generateSeed(128 / 8));
-            final ImmutableBiMap.Builder<String, String> builder = ImmutableBiMap.builder();
-            final List<Contact> contacts = portalApiService.getContacts();
-            if (contacts == null || contacts.isEmpty()) {
-                log.warn("Unable to retrieve contacts!");
-                return;
+        startRotation();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        startRotation();
+    }
+
+    /*
+     * Concurrent rotations share one build.
+     */
+    private CompletableFuture<Rotation> startRotation() {
+        CompletableFuture<Rotation> next = new CompletableFuture<>();
+        CompletableFuture<Rotation> running = pending.compareAndExchange(null, next);
+        if (running != null) {
+            return running;
+        }
+        rotationExecutor.execute(() -> {
+            try {
+                Rotation built = build();
+                if (built == null) {
+                    backOff();
+                } else {
+                    retryAt = 0;
+                }
+                pending.set(null);
+                next.complete(rotation);
+            } catch (RuntimeException | Error e) {
+                log.warn("Unable to build identity mapping, keeping the previous one", e);
+                backOff();
+                pending.set(null);
+                next.completeExceptionally(e);
             }
+        });
+        return next;
+    }
 
-            contacts.forEach(contact -> {
-                String nin = contact.getNin();
-                final String hash = hashFunction.hashUnencodedChars(nin).toString();
-                builder.put(nin, hash);
-                builder.put(contact.getDn(), contactObjectService.getContactDn(hash));
-            });
+    private void backOff() {
+        retryAt = Math.max(System.nanoTime() + retryNanos, 1);
+        log.info("Retrying the identity mapping in {} seconds", Duration.ofNanos(retryNanos).toSeconds());
+    }
 
-            identityMap = builder.build();
-        } finally {
-            readWriteLock.writeLock().unlock();
+    /*
+     * The new rotation, or null if no mapping could be built.
+     */
+    private Rotation build() {
+        final long epoch = keyEpochProvider.getCurrentEpoch();
+        log.info("Rotating keys for epoch {} ...", epoch);
+        final IdentityMapping mapping = formatPreserving ? buildCipherMapping(epoch) : buildIdentityMap(epoch);
+        if (mapping == null) {
+            return null;
+        }
+        rotation = new Rotation(epoch, mapping);
+        if (formatPreserving) {
+            log.info("Format-preserving mapping ready for epoch {}", epoch);
+        } else {
+            log.info("Map contains {} entries", mapping.size());
         }
-        log.info("Map contains {} entries", identityMap.size());
+        return rotation;
     }
 
-    public String mask(String nin) {
-        if (identityMap == null || identityMap.isEmpty()) {
-            rotate();
+    private IdentityMapping buildCipherMapping(long epoch) {
+        return new FormatPreservingIdentityMapping(new FormatPreservingCipher(keyEpochProvider.getKey(epoch, 256 / 8)), contactObjectService);
+    }
+
+    private IdentityMapping buildIdentityMap(long epoch) {
+        final HashFunction hashFunction = Hashing.hmacMd5(keyEpochProvider.getKey(epoch, 128 / 8));
+        final List<Contact> contacts = portalApiService.getContacts();
+        if (contacts == null || contacts.isEmpty()) {
+            log.warn("Unable to retrieve contacts!");
+            return null;
         }
-        return identityMap.get(nin);
+
+        return identityMapBuilder.build(contacts, hashFunction, contactObjectService::getContactDn);
     }
 
-    public String unmask(String hash) {
-        if (identityMap == null || identityMap.isEmpty()) {
-            rotate();
+    /*
+     * A mapping from an earlier epoch starts a rotation on first use, so replicas agree on the masked
+     * identities soon after their clocks agree on the epoch, independent of when the cron job fired.
+     * The previous mapping is served while the new one is built, for at most the grace period. After that,
+     * and before the first mapping exists, readers wait for the build.
+     * After a failed build, readers keep the previous mapping without waiting, and retry no sooner than
+     * fint.identity.rotate.retry later, so a directory that cannot be scanned is not scanned on every request.
+     */
+    private IdentityMapping getIdentityMapping() {
+        Rotation current = rotation;
+        if (current == null || current.epoch != keyEpochProvider.getCurrentEpoch()) {
+            long retry = retryAt;
+            if (retry != 0 && System.nanoTime() - retry < 0) {
+                return current == null ? IdentityMapping.EMPTY : current.mapping;
+            }
+            CompletableFuture<Rotation> next = startRotation();
+            if (retry == 0 && (current == null || current.supersededFor() > graceNanos)) {
+                next.exceptionally(e -> null).join();
+                current = rotation;
+            }
         }
-        return identityMap.inverse().get(hash);
+        return current == null ? IdentityMapping.EMPTY : current.mapping;
+    }
+
+    public String mask(String nin) {
+        return getIdentityMapping().mask(nin);
+    }
+
+    public String unmask(String hash) {
+        return getIdentityMapping().unmask(hash);
     }
 
     public Contact mask(Contact input) {
@@ -119,6 +200,30 @@ public class IdentityMaskingService {
         return output;
     }
 
+    /**
+     * A page of masked contacts in directory order, starting after {@code cursor}, or at the first contact without one.
+     * The contact before the page is read again to check the cursor, which also fails if the masking key has been
+     * rotated since the cursor was handed out.
+     */
+    public ContactPage getMaskedContactPage(ContactCursor cursor, int pageSize) {
+        if (pageSize < 1 || pageSize > ContactPage.MAX_PAGE_SIZE) {
+            throw new InvalidQueryException("pageSize must be between 1 and " + ContactPage.MAX_PAGE_SIZE);
+        }
+        int offset = cursor == null ? 0 : cursor.getOffset();
+        List<Contact> contacts = cursor == null
+                ? portalApiService.getContacts(0, pageSize + 1, pageSize)
+                : portalApiService.getContacts(offset - 1, pageSize + 2, pageSize);
+        if (cursor != null) {
+            if (contacts.isEmpty() || !cursor.getLastNin().equals(mask(contacts.get(0).getNin()))) {
+                throw new InvalidQueryException("The cursor no longer points to a contact, start again from the first page");
+            }
+            contacts = contacts.subList(1, contacts.size());
+        }
+        List<Contact> page = contacts.stream().limit(pageSize).map(this::mask).collect(Collectors.toList());
+        ContactCursor next = contacts.size() > pageSize ? new ContactCursor(offset + pageSize, page.get(pageSize - 1).getNin()) : null;
+        return new ContactPage(page, next);
+    }
+
     public List<Contact> getMaskedContacts() {
         return portalApiService.getContacts().stream().map(this::mask).collect(Collectors.toList());
     }
@@ -127,4 +232,24 @@ public class IdentityMaskingService {
         return mask(portalApiService.getContact(unmask(nin)));
     }
 
+
+    private static final class Rotation {
+        private final long epoch;
+        private final IdentityMapping mapping;
+        private final AtomicLong supersededAt = new AtomicLong();
+
+        private Rotation(long epoch, IdentityMapping mapping) {
+            this.epoch = epoch;
+            this.mapping = mapping;
+        }
+
+        /*
+         * Nanoseconds since a reader first found this rotation outdated.
+         */
+        private long supersededFor() {
+            long now = System.nanoTime();
+            supersededAt.compareAndSet(0, now);
+            return now - supersededAt.get();
+        }
+    }
 }
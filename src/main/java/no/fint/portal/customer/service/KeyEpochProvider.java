@@ -0,0 +1,17 @@
+package no.fint.portal.customer.service;
+
+import java.time.LocalDate;
+
+/**
+ * Source of the key material used for identity masking.
+ * Keys are scoped to epochs, one per day. Providers that return the same key for an epoch on every
+ * node make masked identities agree across replicas.
+ */
+public interface KeyEpochProvider {
+
+    default long getCurrentEpoch() {
+        return LocalDate.now().toEpochDay();
+    }
+
+    byte[] getKey(long epoch, int length);
+}
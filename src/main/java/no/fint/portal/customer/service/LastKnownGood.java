@@ -0,0 +1,135 @@
+package no.fint.portal.customer.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import no.fint.portal.customer.config.CacheConfig;
+import no.fint.portal.model.asset.Asset;
+import org.springframework.beans.BeanUtils;
+import org.springframework.beans.BeanWrapper;
+import org.springframework.beans.BeanWrapperImpl;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.beans.PropertyDescriptor;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Copies of the entities last loaded into the {@link EntityCache}, served when LDAP is unavailable.
+ * <p>
+ * Only the caches in {@code fint.portal.circuit-breaker.fallback-caches} are kept, and of those only entities of
+ * the portal model, lists of them and asset indexes. Values derived from these, like lookup maps, are rebuilt from
+ * the kept lists. Values are copied when remembered and again when recalled, so neither the cached instance nor a
+ * caller can change what is kept. With a {@code maximumWeight} in its spec the store is bounded by the number of
+ * entities rather than values.
+ */
+@Slf4j
+@Component
+public class LastKnownGood {
+
+    public static final String LAST_KNOWN_GOOD = "lastKnownGood";
+
+    private static final String MODEL_PACKAGE = "no.fint.portal.model.";
+
+    private final Set<String> cacheNames;
+    private final Cache<List<Object>, Object> entities;
+    private final Counter staleReads;
+
+    public LastKnownGood(
+            CacheConfig cacheConfig,
+            MeterRegistry meterRegistry,
+            @Value("${fint.portal.circuit-breaker.fallback-caches:organisations,components,clients,adapters,assets,accesses}") Set<String> cacheNames) {
+        this.cacheNames = cacheNames;
+        String spec = cacheConfig.getSpec(LAST_KNOWN_GOOD);
+        Caffeine<Object, Object> builder = Caffeine.from(spec).recordStats();
+        if (spec.contains("maximumWeight")) {
+            entities = builder.<List<Object>, Object>weigher((key, value) -> weight(value)).build();
+        } else {
+            entities = builder.build();
+        }
+        CaffeineCacheMetrics.monitor(meterRegistry, entities, LAST_KNOWN_GOOD);
+        staleReads = Counter.builder("fint.circuit.stale")
+                .description("Reads answered with the last known good value")
+                .tag("backend", Bulkheads.LDAP)
+                .register(meterRegistry);
+        log.info("Last known good entities of {}", cacheNames);
+    }
+
+    public void remember(String cacheName, Object key, Object value) {
+        if (cacheNames.contains(cacheName) && isKept(value)) {
+            entities.put(List.of(cacheName, key), copy(value));
+        }
+    }
+
+    /**
+     * A copy of the value last loaded for the key, flagging the current request as stale if there is one.
+     */
+    public Optional<Object> recall(String cacheName, Object key) {
+        Object value = entities.getIfPresent(List.of(cacheName, key));
+        if (value == null) {
+            return Optional.empty();
+        }
+        log.debug("Serving last known good {} {}", cacheName, key);
+        staleReads.increment();
+        StaleReads.mark();
+        return Optional.of(copy(value));
+    }
+
+    private static boolean isKept(Object value) {
+        if (value instanceof AssetIndex) {
+            return true;
+        }
+        if (value instanceof List) {
+            return ((List<?>) value).stream().allMatch(LastKnownGood::isEntity);
+        }
+        return isEntity(value);
+    }
+
+    private static boolean isEntity(Object value) {
+        return value != null && value.getClass().getName().startsWith(MODEL_PACKAGE);
+    }
+
+    private static int weight(Object value) {
+        if (value instanceof AssetIndex) {
+            return Math.max(1, ((AssetIndex) value).getAssets().size());
+        }
+        if (value instanceof List) {
+            return Math.max(1, ((List<?>) value).size());
+        }
+        return 1;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Object copy(Object value) {
+        if (value instanceof AssetIndex) {
+            return new AssetIndex((List<Asset>) copy(((AssetIndex) value).getAssets()));
+        }
+        if (value instanceof List) {
+            return ((List<?>) value).stream().map(LastKnownGood::copyEntity).collect(Collectors.toList());
+        }
+        return copyEntity(value);
+    }
+
+    /*
+     * Model entities hold strings and lists of strings, copying the lists makes the copy independent.
+     */
+    private static Object copyEntity(Object value) {
+        BeanWrapper source = new BeanWrapperImpl(value);
+        BeanWrapper target = new BeanWrapperImpl(BeanUtils.instantiateClass(value.getClass()));
+        for (PropertyDescriptor property : source.getPropertyDescriptors()) {
+            String name = property.getName();
+            if (source.isReadableProperty(name) && target.isWritableProperty(name)) {
+                Object propertyValue = source.getPropertyValue(name);
+                target.setPropertyValue(name, propertyValue instanceof List ? new ArrayList<>((List<?>) propertyValue) : propertyValue);
+            }
+        }
+        return target.getWrappedInstance();
+    }
+}
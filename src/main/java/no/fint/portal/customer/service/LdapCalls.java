@@ -0,0 +1,85 @@
+package no.fint.portal.customer.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import no.fint.portal.customer.exception.BackendUnavailableException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.net.ConnectException;
+import java.net.UnknownHostException;
+import java.time.Duration;
+import java.util.function.Supplier;
+
+/**
+ * Runs calls that go to the directory behind the LDAP circuit breaker and within the LDAP bulkhead. Only the call
+ * itself holds a permit, so answers from the cache neither take one nor count towards the round trip time, and
+ * results are handed back to the caller after the permit has been released.
+ * <p>
+ * Connection failures count against the circuit and are reported as a {@link BackendUnavailableException}, like
+ * calls while the circuit is open, which fail at once.
+ */
+@Component
+public class LdapCalls {
+
+    private final Bulkhead bulkhead;
+    private final CircuitBreaker circuitBreaker;
+
+    public LdapCalls(
+            Bulkheads bulkheads,
+            MeterRegistry meterRegistry,
+            @Value("${fint.portal.circuit-breaker.failure-threshold:5}") int failureThreshold,
+            @Value("${fint.portal.circuit-breaker.open-duration:PT30S}") Duration openDuration) {
+        bulkhead = bulkheads.get(Bulkheads.LDAP);
+        circuitBreaker = new CircuitBreaker(Bulkheads.LDAP, failureThreshold, openDuration, meterRegistry);
+    }
+
+    public <T> T call(Supplier<T> call) {
+        if (!circuitBreaker.tryAcquire()) {
+            throw circuitBreaker.unavailable();
+        }
+        T result;
+        try {
+            result = bulkhead.call(call);
+        } catch (RuntimeException | Error e) {
+            if (isConnectionFailure(e)) {
+                circuitBreaker.onFailure();
+                BackendUnavailableException unavailable = circuitBreaker.unavailable();
+                unavailable.initCause(e);
+                throw unavailable;
+            } else if (e instanceof BackendUnavailableException) {
+                circuitBreaker.onIgnored();
+            } else {
+                circuitBreaker.onSuccess();
+            }
+            throw e;
+        }
+        circuitBreaker.onSuccess();
+        return result;
+    }
+
+    public void run(Runnable call) {
+        call(() -> {
+            call.run();
+            return null;
+        });
+    }
+
+    /**
+     * Whether the directory could not be asked, because it was unreachable, the circuit was open or the bulkhead full.
+     */
+    public static boolean isUnavailable(Throwable e) {
+        return e instanceof BackendUnavailableException || isConnectionFailure(e);
+    }
+
+    private static boolean isConnectionFailure(Throwable e) {
+        for (Throwable t = e; t != null; t = t.getCause()) {
+            if (t instanceof javax.naming.CommunicationException
+                    || t instanceof javax.naming.ServiceUnavailableException
+                    || t instanceof ConnectException
+                    || t instanceof UnknownHostException) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
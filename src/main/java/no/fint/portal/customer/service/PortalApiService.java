@@ -1,6 +1,5 @@
 package no.fint.portal.customer.service;
 
-import lombok.Synchronized;
 import no.fint.portal.customer.exception.InvalidResourceException;
 import no.fint.portal.exceptions.EntityNotFoundException;
 import no.fint.portal.model.access.AccessPackage;
@@ -17,16 +16,43 @@ import no.fint.portal.model.contact.Contact;
 import no.fint.portal.model.contact.ContactService;
 import no.fint.portal.model.organisation.Organisation;
 import no.fint.portal.model.organisation.OrganisationService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.ldap.NameNotFoundException;
+import org.springframework.ldap.control.PagedResultsDirContextProcessor;
+import org.springframework.ldap.core.AttributesMapper;
+import org.springframework.ldap.core.ContextMapper;
+import org.springframework.ldap.core.DirContextOperations;
+import org.springframework.ldap.core.LdapTemplate;
+import org.springframework.ldap.core.support.SingleContextSource;
+import org.springframework.ldap.odm.core.ObjectDirectoryMapper;
+import org.springframework.ldap.support.LdapNameBuilder;
+import org.springframework.ldap.support.LdapUtils;
 import org.springframework.retry.annotation.Backoff;
 import org.springframework.retry.annotation.Retryable;
 import org.springframework.stereotype.Service;
 
+import javax.naming.Name;
+import javax.naming.directory.Attribute;
+import javax.naming.directory.SearchControls;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.function.BooleanSupplier;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static no.fint.portal.customer.service.EntityCache.*;
 
 
 @Service
 public class PortalApiService {
+    private static final String MODIFY_TIMESTAMP = "modifyTimestamp";
+
     private final ComponentService componentService;
 
     private final OrganisationService organisationService;
@@ -41,7 +67,19 @@ public class PortalApiService {
 
     private final AccessService accessService;
 
-    public PortalApiService(ComponentService componentService, OrganisationService organisationService, AdapterService adapterService, ClientService clientService, AssetService assetService, ContactService contactService, AccessService accessService) {
+    private final RequestCoalescer requestCoalescer;
+
+    private final LdapCalls ldapCalls;
+
+    private final EntityCache entityCache;
+
+    private final LdapTemplate ldapTemplate;
+
+    private final ApplicationEventPublisher applicationEventPublisher;
+
+    private final String contactBase;
+
+    public PortalApiService(ComponentService componentService, OrganisationService organisationService, AdapterService adapterService, ClientService clientService, AssetService assetService, ContactService contactService, AccessService accessService, RequestCoalescer requestCoalescer, LdapCalls ldapCalls, EntityCache entityCache, LdapTemplate ldapTemplate, @Value("${fint.ldap.contact-base}") String contactBase, ApplicationEventPublisher applicationEventPublisher) {
         this.componentService = componentService;
         this.organisationService = organisationService;
         this.adapterService = adapterService;
@@ -49,6 +87,12 @@ public class PortalApiService {
         this.assetService = assetService;
         this.contactService = contactService;
         this.accessService = accessService;
+        this.requestCoalescer = requestCoalescer;
+        this.ldapCalls = ldapCalls;
+        this.entityCache = entityCache;
+        this.ldapTemplate = ldapTemplate;
+        this.contactBase = contactBase;
+        this.applicationEventPublisher = applicationEventPublisher;
     }
 
     @Retryable(
@@ -56,11 +100,40 @@ public class PortalApiService {
             value = {InvalidResourceException.class},
             maxAttempts = 5
     )
-    @Synchronized
     public Organisation getOrganisation(String orgName) {
-        Organisation organisation = organisationService.getOrganisation(orgName).orElseThrow(() -> new EntityNotFoundException("Organisation " + orgName + " not found."));
-        if (organisation.getName() == null) throw new InvalidResourceException("Invalid organisation");
-        return organisation;
+        return entityCache.get(ORGANISATIONS, orgName, () -> loadOrganisation(orgName));
+    }
+
+    /**
+     * Reads the organisation from LDAP, bypassing the cache. Cached entities are shared between requests, so
+     * anything that is modified and written back must be read with one of the {@code ...ForUpdate} methods.
+     */
+    @Retryable(
+            backoff = @Backoff(delay = 200L),
+            value = {InvalidResourceException.class},
+            maxAttempts = 5
+    )
+    public Organisation getOrganisationForUpdate(String orgName) {
+        return loadOrganisation(orgName);
+    }
+
+    /**
+     * Organisation by DN, cached next to the by-name entries and keyed by the parsed DN,
+     * so spelling differences in the DN share an entry.
+     */
+    public Optional<Organisation> getOrganisationByDn(String dn) {
+        return Optional.ofNullable(entityCache.get(ORGANISATIONS, LdapUtils.newLdapName(dn),
+                () -> ldapCalls.call(() -> organisationService.getOrganisationByDn(dn)).orElse(null)));
+    }
+
+    public List<Organisation> getOrganisationsByDns(Collection<String> dns) {
+        return dns.stream()
+                .filter(Objects::nonNull)
+                .distinct()
+                .map(this::getOrganisationByDn)
+                .flatMap(Optional::stream)
+                .distinct()
+                .collect(Collectors.toList());
     }
 
     @Retryable(
@@ -68,13 +141,14 @@ public class PortalApiService {
             value = {InvalidResourceException.class},
             maxAttempts = 5
     )
-    @Synchronized
     public List<Component> getComponents() {
-        List<Component> components = componentService.getComponents();
+        return entityCache.get(COMPONENTS, "all", () -> {
+            List<Component> components = ldapCalls.call(() -> componentService.getComponents());
 
-        if (components.size() == 0) return Collections.emptyList();
-        if (components.get(0).getName() == null) throw new InvalidResourceException("Invalid component");
-        return components;
+            if (components.size() == 0) return Collections.emptyList();
+            if (components.get(0).getName() == null) throw new InvalidResourceException("Invalid component");
+            return components;
+        });
     }
 
     @Retryable(
@@ -82,11 +156,17 @@ public class PortalApiService {
             value = {InvalidResourceException.class},
             maxAttempts = 5
     )
-    @Synchronized
     public Component getComponentByName(String compName) {
-        Component component = componentService.getComponentByName(compName).orElseThrow(() -> new EntityNotFoundException("Component " + compName + " not found."));
-        if (component.getName() == null) throw new InvalidResourceException("Invalid component");
-        return component;
+        return entityCache.get(COMPONENTS, "name:" + compName, () -> loadComponent(compName));
+    }
+
+    @Retryable(
+            backoff = @Backoff(delay = 200L),
+            value = {InvalidResourceException.class},
+            maxAttempts = 5
+    )
+    public Component getComponentForUpdate(String compName) {
+        return loadComponent(compName);
     }
 
     @Retryable(
@@ -94,11 +174,30 @@ public class PortalApiService {
             value = {InvalidResourceException.class},
             maxAttempts = 5
     )
-    @Synchronized
     public Component getComponentByDn(String dn) {
-        Component component = componentService.getComponetByDn(dn).orElseThrow(() -> new EntityNotFoundException("Component " + dn + " not found."));
-        if (component.getName() == null) throw new InvalidResourceException("Invalid component");
-        return component;
+        return entityCache.get(COMPONENTS, "dn:" + dn, () -> {
+            Component component = ldapCalls.call(() -> componentService.getComponetByDn(dn)).orElseThrow(() -> new EntityNotFoundException("Component " + dn + " not found."));
+            if (component.getName() == null) throw new InvalidResourceException("Invalid component");
+            return component;
+        });
+    }
+
+    /**
+     * Resolves components by DN from one cached component listing instead of one LDAP read per DN.
+     * DNs missing from the listing are looked up individually.
+     */
+    @Retryable(
+            backoff = @Backoff(delay = 200L),
+            value = {InvalidResourceException.class},
+            maxAttempts = 5
+    )
+    public List<Component> getComponentsByDns(Collection<String> dns) {
+        Map<Name, Component> index = entityCache.get(COMPONENTS, "index", () -> getComponents()
+                .stream()
+                .collect(Collectors.toMap(component -> LdapUtils.newLdapName(component.getDn()), Function.identity(), (a, b) -> a)));
+        return dns.stream()
+                .map(dn -> Optional.ofNullable(index.get(LdapUtils.newLdapName(dn))).orElseGet(() -> getComponentByDn(dn)))
+                .collect(Collectors.toList());
     }
 
     @Retryable(
@@ -106,13 +205,14 @@ public class PortalApiService {
             value = {InvalidResourceException.class},
             maxAttempts = 5
     )
-    @Synchronized
     public List<Client> getClients(Organisation organisation) {
-        List<Client> clients = clientService.getClients(organisation.getName());
+        return entityCache.get(CLIENTS, organisation.getName(), () -> {
+            List<Client> clients = ldapCalls.call(() -> clientService.getClients(organisation.getName()));
 
-        if (clients.size() == 0) return Collections.emptyList();
-        if (clients.get(0).getName() == null) throw new InvalidResourceException("Invalid client");
-        return clients;
+            if (clients.size() == 0) return Collections.emptyList();
+            if (clients.get(0).getName() == null) throw new InvalidResourceException("Invalid client");
+            return clients;
+        });
     }
 
     @Retryable(
@@ -120,11 +220,17 @@ public class PortalApiService {
             value = {InvalidResourceException.class},
             maxAttempts = 5
     )
-    @Synchronized
     public Client getClient(Organisation organisation, String clientName) {
-        Client client = clientService.getClient(clientName, organisation.getName()).orElseThrow(() -> new EntityNotFoundException("Client " + clientName + " not found."));
-        if (client.getName() == null) throw new InvalidResourceException("Invalid client");
-        return client;
+        return entityCache.get(CLIENTS, key(organisation, clientName), () -> loadClient(organisation, clientName));
+    }
+
+    @Retryable(
+            backoff = @Backoff(delay = 200L),
+            value = {InvalidResourceException.class},
+            maxAttempts = 5
+    )
+    public Client getClientForUpdate(Organisation organisation, String clientName) {
+        return loadClient(organisation, clientName);
     }
 
     @Retryable(
@@ -132,13 +238,14 @@ public class PortalApiService {
             value = {InvalidResourceException.class},
             maxAttempts = 5
     )
-    @Synchronized
     public List<Adapter> getAdapters(Organisation organisation) {
-        List<Adapter> adapters = adapterService.getAdapters(organisation.getName());
+        return entityCache.get(ADAPTERS, organisation.getName(), () -> {
+            List<Adapter> adapters = ldapCalls.call(() -> adapterService.getAdapters(organisation.getName()));
 
-        if (adapters.size() == 0) return Collections.emptyList();
-        if (adapters.get(0).getName() == null) throw new InvalidResourceException("Invalid adapter");
-        return adapters;
+            if (adapters.size() == 0) return Collections.emptyList();
+            if (adapters.get(0).getName() == null) throw new InvalidResourceException("Invalid adapter");
+            return adapters;
+        });
     }
 
     @Retryable(
@@ -146,11 +253,8 @@ public class PortalApiService {
             value = {InvalidResourceException.class},
             maxAttempts = 5
     )
-    @Synchronized
     public Adapter getAdapter(Organisation organisation, String adapterName) {
-        Adapter adapter = adapterService.getAdapter(adapterName, organisation.getName()).orElseThrow(() -> new EntityNotFoundException("Adapter " + adapterName + " not found"));
-        if (adapter.getName() == null) throw new InvalidResourceException("Invalid adapter");
-        return adapter;
+        return entityCache.get(ADAPTERS, key(organisation, adapterName), () -> loadAdapter(organisation, adapterName));
     }
 
     @Retryable(
@@ -158,13 +262,17 @@ public class PortalApiService {
             value = {InvalidResourceException.class},
             maxAttempts = 5
     )
-    @Synchronized
-    public List<Asset> getAssets(Organisation organisation) {
-        List<Asset> assets = assetService.getAssets(organisation);
+    public Adapter getAdapterForUpdate(Organisation organisation, String adapterName) {
+        return loadAdapter(organisation, adapterName);
+    }
 
-        if (assets.size() == 0) return Collections.emptyList();
-        if (assets.get(0).getName() == null) throw new InvalidResourceException("Invalid asset");
-        return assets;
+    @Retryable(
+            backoff = @Backoff(delay = 200L),
+            value = {InvalidResourceException.class},
+            maxAttempts = 5
+    )
+    public List<Asset> getAssets(Organisation organisation) {
+        return getAssetIndex(organisation).getAssets();
     }
 
     @Retryable(
@@ -172,9 +280,17 @@ public class PortalApiService {
             value = {InvalidResourceException.class},
             maxAttempts = 5
     )
-    @Synchronized
     public Asset getAsset(Organisation organisation, String assetId) {
-        Asset asset = assetService.getAssets(organisation).stream().filter(a -> assetId.equals(a.getName())).findAny().orElseThrow(() -> new EntityNotFoundException("Asset " + assetId + " not found."));
+        return getAssetIndex(organisation).getByName(assetId).orElseThrow(() -> new EntityNotFoundException("Asset " + assetId + " not found."));
+    }
+
+    @Retryable(
+            backoff = @Backoff(delay = 200L),
+            value = {InvalidResourceException.class},
+            maxAttempts = 5
+    )
+    public Asset getAssetForUpdate(Organisation organisation, String assetId) {
+        Asset asset = ldapCalls.call(() -> assetService.getAssets(organisation)).stream().filter(a -> assetId.equals(a.getName())).findAny().orElseThrow(() -> new EntityNotFoundException("Asset " + assetId + " not found."));
         if (asset.getName() == null) throw new InvalidResourceException("Invalid asset");
         return asset;
     }
@@ -184,25 +300,88 @@ public class PortalApiService {
             value = {InvalidResourceException.class},
             maxAttempts = 5
     )
-    @Synchronized
+    public Asset getPrimaryAsset(Organisation organisation) {
+        return getAssetIndex(organisation).getPrimaryAsset().orElseThrow(() -> new EntityNotFoundException("Primary asset not present."));
+    }
+
+    @Retryable(
+            backoff = @Backoff(delay = 200L),
+            value = {InvalidResourceException.class},
+            maxAttempts = 5
+    )
     public List<Contact> getContacts() {
-        List<Contact> contacts = contactService.getContacts();
-        if (contacts == null) throw new InvalidResourceException("null Contacts");
-        if (contacts.size() == 0) return Collections.emptyList();
-        if (contacts.get(0).getFirstName() == null) throw new InvalidResourceException("Invalid contact");
+        return requestCoalescer.execute(List.of("getContacts"), () -> {
+            List<Contact> contacts = ldapCalls.call(() -> contactService.getContacts());
+            if (contacts == null) throw new InvalidResourceException("null Contacts");
+            if (contacts.size() == 0) return Collections.emptyList();
+            if (contacts.get(0).getFirstName() == null) throw new InvalidResourceException("Invalid contact");
+            return contacts;
+        });
+    }
+
+    /**
+     * Returns up to {@code limit} contacts from position {@code skip} in directory order, reading the directory
+     * in pages of {@code pageSize} with the LDAP paged results control. Contacts before {@code skip} are dropped
+     * page by page, so no more than one page and the result are held in memory. The LDAP bulkhead is only held
+     * while a page is read.
+     */
+    public List<Contact> getContacts(int skip, int limit, int pageSize) {
+        final ObjectDirectoryMapper mapper = ldapTemplate.getObjectDirectoryMapper();
+        final SearchControls searchControls = new SearchControls();
+        searchControls.setSearchScope(SearchControls.SUBTREE_SCOPE);
+        final ContextMapper<Contact> contextMapper = ctx -> mapper.mapFromLdapDataEntry((DirContextOperations) ctx, Contact.class);
+        final List<Contact> contacts = new ArrayList<>(limit);
+        SingleContextSource.doWithSingleContext(ldapTemplate.getContextSource(), operations -> {
+            final PagedResultsDirContextProcessor processor = new PagedResultsDirContextProcessor(pageSize);
+            int position = 0;
+            do {
+                List<Contact> page = ldapCalls.call(() -> operations.search(contactBase, mapper.filterFor(Contact.class, null).encode(), searchControls, contextMapper, processor));
+                for (Contact contact : page) {
+                    if (position++ >= skip && contacts.size() < limit) {
+                        contacts.add(contact);
+                    }
+                }
+            } while (contacts.size() < limit && processor.hasMore());
+            return null;
+        });
         return contacts;
     }
 
+    /**
+     * The {@code modifyTimestamp} of the entry of a contact, which changes with its roles and organisation links,
+     * or null if there is no such contact.
+     */
+    public String getContactModifyTimestamp(String nin) {
+        Name dn = LdapNameBuilder.newInstance(contactBase).add("cn", nin).build();
+        try {
+            return ldapCalls.call(() -> ldapTemplate.lookup(dn, new String[]{MODIFY_TIMESTAMP}, (AttributesMapper<String>) attributes -> {
+                Attribute modified = attributes.get(MODIFY_TIMESTAMP);
+                return modified == null ? null : String.valueOf(modified.get());
+            }));
+        } catch (NameNotFoundException e) {
+            return null;
+        }
+    }
+
     @Retryable(
             backoff = @Backoff(delay = 200L),
             value = {InvalidResourceException.class},
             maxAttempts = 5
     )
-    @Synchronized
     public Contact getContact(String nin) {
-        Contact contact = contactService.getContact(nin).orElseThrow(() -> new EntityNotFoundException("Contact " + nin + " not found."));
-        if (contact.getFirstName() == null) throw new InvalidResourceException("Invalid contact");
-        return contact;
+        return requestCoalescer.execute(List.of("getContact", nin), () -> loadContact(nin));
+    }
+
+    /**
+     * Reads the contact without sharing the result with concurrent callers of {@link #getContact(String)}.
+     */
+    @Retryable(
+            backoff = @Backoff(delay = 200L),
+            value = {InvalidResourceException.class},
+            maxAttempts = 5
+    )
+    public Contact getContactForUpdate(String nin) {
+        return loadContact(nin);
     }
 
     @Retryable(
@@ -210,9 +389,8 @@ public class PortalApiService {
             value = {InvalidResourceException.class},
             maxAttempts = 5
     )
-    @Synchronized
     public List<AccessPackage> getAccesses(Organisation organisation) {
-        return accessService.getAccesses(organisation.getName());
+        return entityCache.get(ACCESSES, organisation.getName(), () -> ldapCalls.call(() -> accessService.getAccesses(organisation.getName())));
     }
 
     @Retryable(
@@ -220,8 +398,349 @@ public class PortalApiService {
             value = {InvalidResourceException.class},
             maxAttempts = 5
     )
-    @Synchronized
     public AccessPackage getAccess(Organisation organisation, String accessId) {
-        return accessService.getAccess(accessId, organisation.getName());
+        return entityCache.get(ACCESSES, key(organisation, accessId), () -> ldapCalls.call(() -> accessService.getAccess(accessId, organisation.getName())));
+    }
+
+    @Retryable(
+            backoff = @Backoff(delay = 200L),
+            value = {InvalidResourceException.class},
+            maxAttempts = 5
+    )
+    public AccessPackage getAccessForUpdate(Organisation organisation, String accessId) {
+        return ldapCalls.call(() -> accessService.getAccess(accessId, organisation.getName()));
+    }
+
+    public Contact getLegalContact(Organisation organisation) {
+        return ldapCalls.call(() -> organisationService.getLegalContact(organisation));
+    }
+
+    public List<Contact> getTechnicalContacts(Organisation organisation) {
+        return ldapCalls.call(() -> organisationService.getTechnicalContacts(organisation));
+    }
+
+    /**
+     * Looks the client up in the directory, bypassing the cache, to tell whether the name is taken.
+     */
+    public Optional<Client> findClient(Organisation organisation, String clientName) {
+        return ldapCalls.call(() -> clientService.getClient(clientName, organisation.getName()));
+    }
+
+    /**
+     * Looks the adapter up in the directory, bypassing the cache, to tell whether the name is taken.
+     */
+    public Optional<Adapter> findAdapter(Organisation organisation, String adapterName) {
+        return ldapCalls.call(() -> adapterService.getAdapter(adapterName, organisation.getName()));
+    }
+
+    public String getClientSecret(Client client) {
+        return ldapCalls.call(() -> clientService.getClientSecret(client));
+    }
+
+    public String getAdapterSecret(Adapter adapter) {
+        return ldapCalls.call(() -> adapterService.getAdapterSecret(adapter));
+    }
+
+    public void updateOrganisation(Organisation organisation) {
+        evicting(() -> evictOrganisation(organisation), () -> organisationService.updateOrganisation(organisation));
+    }
+
+    public void linkComponent(Organisation organisation, Component component) {
+        evicting(() -> {
+            evictOrganisation(organisation);
+            evictComponent(component);
+        }, () -> organisationService.linkComponent(organisation, component));
+    }
+
+    public void unLinkComponent(Organisation organisation, Component component) {
+        evicting(() -> {
+            evictOrganisation(organisation);
+            evictComponent(component);
+        }, () -> organisationService.unLinkComponent(organisation, component));
+    }
+
+    public void linkLegalContact(Organisation organisation, Contact contact) {
+        evicting(() -> {
+            evictOrganisation(organisation);
+            contactChanged(contact);
+        }, () -> organisationService.linkLegalContact(organisation, contact));
+    }
+
+    public void unLinkLegalContact(Organisation organisation, Contact contact) {
+        evicting(() -> {
+            evictOrganisation(organisation);
+            contactChanged(contact);
+        }, () -> organisationService.unLinkLegalContact(organisation, contact));
+    }
+
+    public void linkTechnicalContact(Organisation organisation, Contact contact) {
+        evicting(() -> {
+            evictOrganisation(organisation);
+            contactChanged(contact);
+        }, () -> organisationService.linkTechnicalContact(organisation, contact));
+    }
+
+    public void unLinkTechnicalContact(Organisation organisation, Contact contact) {
+        evicting(() -> {
+            evictOrganisation(organisation);
+            contactChanged(contact);
+        }, () -> organisationService.unLinkTechnicalContact(organisation, contact));
+    }
+
+    public void addRoles(Organisation organisation, Contact contact, List<String> roles) {
+        evicting(() -> contactChanged(contact), () -> organisationService.addRoles(organisation, contact, roles));
+    }
+
+    public void removeRoles(Organisation organisation, Contact contact, List<String> roles) {
+        evicting(() -> contactChanged(contact), () -> organisationService.removeRoles(organisation, contact, roles));
+    }
+
+    public void linkAdapter(Organisation organisation, Component component, Adapter adapter) {
+        evicting(() -> {
+            evictComponent(component);
+            evictAdapter(organisation, adapter);
+        }, () -> componentService.linkAdapter(component, adapter));
+    }
+
+    public void unLinkAdapter(Organisation organisation, Component component, Adapter adapter) {
+        evicting(() -> {
+            evictComponent(component);
+            evictAdapter(organisation, adapter);
+        }, () -> componentService.unLinkAdapter(component, adapter));
+    }
+
+    public void linkClient(Organisation organisation, Component component, Client client) {
+        evicting(() -> {
+            evictComponent(component);
+            evictClient(organisation, client);
+        }, () -> componentService.linkClient(component, client));
+    }
+
+    public void unLinkClient(Organisation organisation, Component component, Client client) {
+        evicting(() -> {
+            evictComponent(component);
+            evictClient(organisation, client);
+        }, () -> componentService.unLinkClient(component, client));
+    }
+
+    public boolean addClient(Organisation organisation, Client client) {
+        return evicting(() -> evictClient(organisation, client), () -> clientService.addClient(client, organisation));
+    }
+
+    public boolean updateClient(Organisation organisation, Client client) {
+        return evicting(() -> evictClient(organisation, client), () -> clientService.updateClient(client));
+    }
+
+    public void resetClientPassword(Organisation organisation, Client client, String newPassword) {
+        evicting(() -> evictClient(organisation, client), () -> clientService.resetClientPassword(client, newPassword));
+    }
+
+    public void deleteClient(Organisation organisation, Client client) {
+        evicting(() -> {
+            evictClient(organisation, client);
+            evictComponents();
+            evictAssets(organisation);
+            entityCache.evictOrganisationScope(ACCESSES, organisation.getName());
+        }, () -> clientService.deleteClient(client));
+    }
+
+    public boolean addAdapter(Organisation organisation, Adapter adapter) {
+        return evicting(() -> evictAdapter(organisation, adapter), () -> adapterService.addAdapter(adapter, organisation));
+    }
+
+    public boolean updateAdapter(Organisation organisation, Adapter adapter) {
+        return evicting(() -> evictAdapter(organisation, adapter), () -> adapterService.updateAdapter(adapter));
+    }
+
+    public void resetAdapterPassword(Organisation organisation, Adapter adapter, String newPassword) {
+        evicting(() -> evictAdapter(organisation, adapter), () -> adapterService.resetAdapterPassword(adapter, newPassword));
+    }
+
+    public void deleteAdapter(Organisation organisation, Adapter adapter) {
+        evicting(() -> {
+            evictAdapter(organisation, adapter);
+            evictComponents();
+            evictAssets(organisation);
+        }, () -> adapterService.deleteAdapter(adapter));
+    }
+
+    public boolean addAsset(Organisation organisation, Asset asset) {
+        return evicting(() -> evictAssets(organisation), () -> assetService.addAsset(asset, organisation));
+    }
+
+    public void updateAsset(Organisation organisation, Asset asset) {
+        evicting(() -> evictAssets(organisation), () -> assetService.updateAsset(asset));
+    }
+
+    public void removeAsset(Organisation organisation, Asset asset) {
+        evicting(() -> {
+            evictAssets(organisation);
+            entityCache.evictOrganisationScope(CLIENTS, organisation.getName());
+            entityCache.evictOrganisationScope(ADAPTERS, organisation.getName());
+        }, () -> assetService.removeAsset(asset));
+    }
+
+    public void linkClientToAsset(Organisation organisation, Asset asset, Client client) {
+        evicting(() -> {
+            evictAssets(organisation);
+            evictClient(organisation, client);
+        }, () -> assetService.linkClientToAsset(asset, client));
+    }
+
+    public void unlinkClientFromAsset(Organisation organisation, Asset asset, Client client) {
+        evicting(() -> {
+            evictAssets(organisation);
+            evictClient(organisation, client);
+        }, () -> assetService.unlinkClientFromAsset(asset, client));
+    }
+
+    public void linkAdapterToAsset(Organisation organisation, Asset asset, Adapter adapter) {
+        evicting(() -> {
+            evictAssets(organisation);
+            evictAdapter(organisation, adapter);
+        }, () -> assetService.linkAdapterToAsset(asset, adapter));
+    }
+
+    public void unlinkAdapterFromAsset(Organisation organisation, Asset asset, Adapter adapter) {
+        evicting(() -> {
+            evictAssets(organisation);
+            evictAdapter(organisation, adapter);
+        }, () -> assetService.unlinkAdapterFromAsset(asset, adapter));
+    }
+
+    public boolean addAccess(Organisation organisation, AccessPackage accessPackage) {
+        return evicting(() -> evictAccess(organisation, accessPackage), () -> accessService.addAccess(accessPackage, organisation));
+    }
+
+    public boolean updateAccess(Organisation organisation, AccessPackage accessPackage) {
+        return evicting(() -> evictAccess(organisation, accessPackage), () -> accessService.updateAccess(accessPackage));
+    }
+
+    public void removeAccess(Organisation organisation, AccessPackage accessPackage) {
+        evicting(() -> {
+            evictAccess(organisation, accessPackage);
+            entityCache.evictOrganisationScope(CLIENTS, organisation.getName());
+        }, () -> accessService.removeAccess(accessPackage));
+    }
+
+    public void linkClientToAccess(Organisation organisation, AccessPackage accessPackage, Client client) {
+        evicting(() -> {
+            evictAccess(organisation, accessPackage);
+            evictClient(organisation, client);
+        }, () -> accessService.linkClientToAccess(accessPackage, client));
+    }
+
+    public void unlinkClientFromAccess(Organisation organisation, AccessPackage accessPackage, Client client) {
+        evicting(() -> {
+            evictAccess(organisation, accessPackage);
+            evictClient(organisation, client);
+        }, () -> accessService.unlinkClientFromAccess(accessPackage, client));
+    }
+
+    private AssetIndex getAssetIndex(Organisation organisation) {
+        return entityCache.get(ASSETS, organisation.getName(), () -> {
+            List<Asset> assets = ldapCalls.call(() -> assetService.getAssets(organisation));
+
+            if (assets.size() > 0 && assets.get(0).getName() == null) throw new InvalidResourceException("Invalid asset");
+            return new AssetIndex(assets);
+        });
+    }
+
+    private Organisation loadOrganisation(String orgName) {
+        Organisation organisation = ldapCalls.call(() -> organisationService.getOrganisation(orgName)).orElseThrow(() -> new EntityNotFoundException("Organisation " + orgName + " not found."));
+        if (organisation.getName() == null) throw new InvalidResourceException("Invalid organisation");
+        return organisation;
+    }
+
+    private Component loadComponent(String compName) {
+        Component component = ldapCalls.call(() -> componentService.getComponentByName(compName)).orElseThrow(() -> new EntityNotFoundException("Component " + compName + " not found."));
+        if (component.getName() == null) throw new InvalidResourceException("Invalid component");
+        return component;
+    }
+
+    private Client loadClient(Organisation organisation, String clientName) {
+        Client client = ldapCalls.call(() -> clientService.getClient(clientName, organisation.getName())).orElseThrow(() -> new EntityNotFoundException("Client " + clientName + " not found."));
+        if (client.getName() == null) throw new InvalidResourceException("Invalid client");
+        return client;
+    }
+
+    private Adapter loadAdapter(Organisation organisation, String adapterName) {
+        Adapter adapter = ldapCalls.call(() -> adapterService.getAdapter(adapterName, organisation.getName())).orElseThrow(() -> new EntityNotFoundException("Adapter " + adapterName + " not found"));
+        if (adapter.getName() == null) throw new InvalidResourceException("Invalid adapter");
+        return adapter;
+    }
+
+    private Contact loadContact(String nin) {
+        Contact contact = ldapCalls.call(() -> contactService.getContact(nin)).orElseThrow(() -> new EntityNotFoundException("Contact " + nin + " not found."));
+        if (contact.getFirstName() == null) throw new InvalidResourceException("Invalid contact");
+        return contact;
+    }
+
+    private void contactChanged(Contact contact) {
+        applicationEventPublisher.publishEvent(new ContactChangedEvent(contact.getNin()));
+    }
+
+    /*
+     * Evicts before and after the update. The first pass keeps reads that start during the update from
+     * being answered with the old entry, the second drops anything that was loaded while the update was running.
+     */
+    private void evicting(Runnable evictions, Runnable update) {
+        evictions.run();
+        try {
+            ldapCalls.run(update);
+        } finally {
+            evictions.run();
+        }
+    }
+
+    private boolean evicting(Runnable evictions, BooleanSupplier update) {
+        evictions.run();
+        try {
+            return ldapCalls.call(update::getAsBoolean);
+        } finally {
+            evictions.run();
+        }
+    }
+
+    private void evictOrganisation(Organisation organisation) {
+        entityCache.evict(ORGANISATIONS, organisation.getName());
+        if (organisation.getDn() != null) {
+            entityCache.evict(ORGANISATIONS, LdapUtils.newLdapName(organisation.getDn()));
+        }
+    }
+
+    /*
+     * Components link to organisations, clients and adapters. The component catalogue is small, so it is
+     * evicted as a whole.
+     */
+    private void evictComponents() {
+        entityCache.evictAll(COMPONENTS);
+        applicationEventPublisher.publishEvent(new ComponentsChangedEvent(null));
+    }
+
+    private void evictComponent(Component component) {
+        entityCache.evictAll(COMPONENTS);
+        applicationEventPublisher.publishEvent(new ComponentsChangedEvent(component.getDn()));
+    }
+
+    private void evictClient(Organisation organisation, Client client) {
+        entityCache.evict(CLIENTS, organisation.getName(), key(organisation, client.getName()));
+    }
+
+    private void evictAdapter(Organisation organisation, Adapter adapter) {
+        entityCache.evict(ADAPTERS, organisation.getName(), key(organisation, adapter.getName()));
+    }
+
+    private void evictAssets(Organisation organisation) {
+        entityCache.evict(ASSETS, organisation.getName());
+        applicationEventPublisher.publishEvent(new AssetsChangedEvent(organisation.getName()));
+    }
+
+    private void evictAccess(Organisation organisation, AccessPackage accessPackage) {
+        entityCache.evict(ACCESSES, organisation.getName(), key(organisation, accessPackage.getName()));
+    }
+
+    private static String key(Organisation organisation, String name) {
+        return organisation.getName() + "/" + name;
     }
 }
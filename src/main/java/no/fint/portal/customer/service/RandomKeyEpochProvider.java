@@ -0,0 +1,82 @@
+package no.fint.portal.customer.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.client.RestTemplateBuilder;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestTemplate;
+
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Per-process random keys, seeded from the drand beacon.
+ * Keys differ between replicas, so this provider only suits a single instance.
+ * <p>
+ * The beacon is fetched in the background with a deadline. Until it answers, keys come from the
+ * platform {@link SecureRandom}; the beacon randomness is mixed in when it arrives.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "fint.identity.key.provider", havingValue = "random", matchIfMissing = true)
+public class RandomKeyEpochProvider implements KeyEpochProvider {
+
+    private final SecureRandom random = new SecureRandom();
+
+    public RandomKeyEpochProvider(
+            RestTemplateBuilder builder,
+            MeterRegistry meterRegistry,
+            @Value("${fint.drand.uri:https://api.drand.sh}") String rootUri,
+            @Value("${fint.drand.timeout:PT2S}") Duration timeout) {
+        final RestTemplate restTemplate = builder
+                .rootUri(rootUri)
+                .setConnectTimeout(timeout)
+                .setReadTimeout(timeout)
+                .build();
+        final long start = System.nanoTime();
+        CompletableFuture
+                .supplyAsync(() -> restTemplate.getForObject("/public/latest", JsonNode.class).get("randomness").asText())
+                .orTimeout(timeout.toMillis(), TimeUnit.MILLISECONDS)
+                .whenComplete((randomness, e) -> {
+                    String outcome;
+                    if (e == null) {
+                        log.info("Randomness seed: {}", randomness);
+                        reseed(Base64.getDecoder().decode(randomness));
+                        outcome = "seeded";
+                    } else if (e instanceof TimeoutException) {
+                        log.warn("No random seed within {}, continuing with the platform seed", timeout);
+                        outcome = "timeout";
+                    } else {
+                        log.warn("Unable to get a random seed: {}", e.getMessage());
+                        outcome = "failed";
+                    }
+                    Timer.builder("fint.identity.seed")
+                            .description("Time to seed identity keys from the drand beacon")
+                            .tag("outcome", outcome)
+                            .register(meterRegistry)
+                            .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                });
+    }
+
+    /*
+     * setSeed supplements, never replaces, the existing seed, so reseeding cannot weaken the generator.
+     */
+    private synchronized void reseed(byte[] seed) {
+        random.setSeed(seed);
+    }
+
+    @Override
+    public synchronized byte[] getKey(long epoch, int length) {
+        byte[] key = new byte[length];
+        random.nextBytes(key);
+        return key;
+    }
+}
@@ -0,0 +1,57 @@
+package no.fint.portal.customer.service;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Tracks whether a request was answered with data served while LDAP was unavailable.
+ * <p>
+ * The flag of a request is installed on its thread with {@link #begin()} and follows tasks submitted through
+ * {@link #propagate(Runnable)}. Reads only ever set the flag, never touch the request, so a task that completes
+ * after its request has been recycled does no harm.
+ */
+public final class StaleReads {
+
+    public static final String ATTRIBUTE = StaleReads.class.getName();
+
+    private static final ThreadLocal<AtomicBoolean> CURRENT = new ThreadLocal<>();
+
+    private StaleReads() {
+    }
+
+    public static AtomicBoolean begin() {
+        AtomicBoolean flag = new AtomicBoolean();
+        CURRENT.set(flag);
+        return flag;
+    }
+
+    public static void end() {
+        CURRENT.remove();
+    }
+
+    public static void mark() {
+        AtomicBoolean flag = CURRENT.get();
+        if (flag != null) {
+            flag.set(true);
+        }
+    }
+
+    public static Runnable propagate(Runnable task) {
+        AtomicBoolean flag = CURRENT.get();
+        if (flag == null) {
+            return task;
+        }
+        return () -> {
+            AtomicBoolean previous = CURRENT.get();
+            CURRENT.set(flag);
+            try {
+                task.run();
+            } finally {
+                if (previous == null) {
+                    CURRENT.remove();
+                } else {
+                    CURRENT.set(previous);
+                }
+            }
+        };
+    }
+}
@@ -0,0 +1,58 @@
+package no.fint.portal.security;
+
+import no.fint.portal.customer.service.RoleConfig;
+import org.springframework.security.core.GrantedAuthority;
+
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The organisations a user may access, per role.
+ * Admin and organisation authorities grant every role for their organisation.
+ */
+public class AuthorityIndex {
+
+    private static final String[] NONE = new String[0];
+
+    private final EnumMap<RoleConfig.RoleId, String[]> organisationsByRole = new EnumMap<>(RoleConfig.RoleId.class);
+    private final String[] allRoleOrganisations;
+
+    private AuthorityIndex(Map<RoleConfig.RoleId, Set<String>> organisationsByRole, Set<String> allRoleOrganisations) {
+        organisationsByRole.forEach((roleId, organisations) -> this.organisationsByRole.put(roleId, organisations.toArray(String[]::new)));
+        this.allRoleOrganisations = allRoleOrganisations.toArray(String[]::new);
+    }
+
+    public static AuthorityIndex of(Collection<? extends GrantedAuthority> authorities) {
+        final Map<RoleConfig.RoleId, Set<String>> organisationsByRole = new EnumMap<>(RoleConfig.RoleId.class);
+        final Set<String> allRoleOrganisations = new LinkedHashSet<>();
+        for (GrantedAuthority authority : authorities) {
+            if (authority instanceof FintPortalRoleAuthority) {
+                FintPortalRoleAuthority roleAuthority = (FintPortalRoleAuthority) authority;
+                organisationsByRole.computeIfAbsent(roleAuthority.getRoleId(), it -> new LinkedHashSet<>()).add(roleAuthority.getOrganisation());
+            } else if (authority instanceof FintPortalAuthority) {
+                allRoleOrganisations.add(((FintPortalAuthority) authority).getOrganisation());
+            }
+        }
+        return new AuthorityIndex(organisationsByRole, allRoleOrganisations);
+    }
+
+    /**
+     * Whether the path starting at {@code offset} of {@code url} is, or is below, an organisation granted {@code roleId}.
+     */
+    public boolean isAccessGranted(RoleConfig.RoleId roleId, String url, int offset) {
+        return matches(allRoleOrganisations, url, offset) || matches(organisationsByRole.getOrDefault(roleId, NONE), url, offset);
+    }
+
+    private static boolean matches(String[] organisations, String url, int offset) {
+        for (String organisation : organisations) {
+            int end = offset + organisation.length();
+            if (url.startsWith(organisation, offset) && (url.length() == end || url.charAt(end) == '/')) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
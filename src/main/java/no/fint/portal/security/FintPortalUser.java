@@ -0,0 +1,19 @@
+package no.fint.portal.security;
+
+import lombok.Getter;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+
+/**
+ * User details carrying an {@link AuthorityIndex} built once when the user is loaded.
+ */
+public class FintPortalUser extends User {
+
+    @Getter
+    private final transient AuthorityIndex authorityIndex;
+
+    public FintPortalUser(UserDetails user) {
+        super(user.getUsername(), user.getPassword(), user.getAuthorities());
+        authorityIndex = AuthorityIndex.of(getAuthorities());
+    }
+}
@@ -0,0 +1,79 @@
+package no.fint.portal.security;
+
+import no.fint.portal.customer.service.RoleConfig;
+import org.apache.commons.lang3.StringUtils;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Prefix trie over the role URIs.
+ * Resolves the first configured role whose URI is a prefix of a request URL in one pass over the URL.
+ */
+public class RolePathTrie {
+
+    private final List<RoleConfig.Role> roles;
+    private final Node root = new Node();
+
+    public RolePathTrie(List<RoleConfig.Role> roles) {
+        this.roles = roles;
+        for (int i = 0; i < roles.size(); i++) {
+            final String uri = roles.get(i).getUri();
+            if (StringUtils.isBlank(uri)) {
+                continue;
+            }
+            Node node = root;
+            for (int j = 0; j < uri.length(); j++) {
+                node = node.getOrAdd(uri.charAt(j));
+            }
+            if (node.role < 0) {
+                node.role = i;
+            }
+        }
+    }
+
+    public RoleConfig.Role find(String url) {
+        if (url == null) {
+            return null;
+        }
+        int match = -1;
+        Node node = root;
+        for (int i = 0; i < url.length(); i++) {
+            node = node.get(url.charAt(i));
+            if (node == null) {
+                break;
+            }
+            if (node.role >= 0 && (match < 0 || node.role < match)) {
+                match = node.role;
+            }
+        }
+        return match < 0 ? null : roles.get(match);
+    }
+
+    private static final class Node {
+        private char[] keys = new char[0];
+        private Node[] children = new Node[0];
+        private int role = -1;
+
+        private Node get(char c) {
+            for (int i = 0; i < keys.length; i++) {
+                if (keys[i] == c) {
+                    return children[i];
+                }
+            }
+            return null;
+        }
+
+        private Node getOrAdd(char c) {
+            Node child = get(c);
+            if (child == null) {
+                child = new Node();
+                keys = Arrays.copyOf(keys, keys.length + 1);
+                children = Arrays.copyOf(children, children.length + 1);
+                keys[keys.length - 1] = c;
+                children[children.length - 1] = child;
+            }
+            return child;
+        }
+    }
+}
@@ -1,10 +1,11 @@
 package no.fint.portal.security;
 
 import lombok.extern.slf4j.Slf4j;
-import org.apache.commons.lang3.StringUtils;
+import no.fint.portal.customer.service.RoleConfig;
 import org.springframework.security.access.AccessDecisionVoter;
 import org.springframework.security.access.ConfigAttribute;
 import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.web.FilterInvocation;
 import org.springframework.stereotype.Service;
@@ -16,12 +17,12 @@ import java.util.Collection;
 @Slf4j
 public class SecureUrlAccessDecisionVoter implements AccessDecisionVoter<FilterInvocation> {
 
+    private static final GrantedAuthority ANONYMOUS = new SimpleGrantedAuthority("ROLE_ANONYMOUS");
+
     private final AuthorizationService authorizationService;
-    private final String[] securePaths;
 
     public SecureUrlAccessDecisionVoter(AuthorizationService authorizationService) {
         this.authorizationService = authorizationService;
-        securePaths = this.authorizationService.getSecurePaths();
     }
 
     @Override
@@ -38,18 +39,20 @@ public class SecureUrlAccessDecisionVoter implements AccessDecisionVoter<FilterI
 
     @Override
     public int vote(Authentication authentication, FilterInvocation invocation, Collection<ConfigAttribute> attributes) {
-        log.debug("Authorization: {}", invocation.getRequestUrl());
+        final String requestUrl = invocation.getRequestUrl();
+        log.debug("Authorization: {}", requestUrl);
 
-        if (!StringUtils.startsWithAny(invocation.getRequestUrl(), securePaths)) {
-            log.debug("Unsecured URL {}", invocation.getRequestUrl());
+        final RoleConfig.Role role = authorizationService.getRole(requestUrl);
+        if (role == null) {
+            log.debug("Unsecured URL {}", requestUrl);
             return ACCESS_GRANTED;
         }
 
-        if (authentication.getAuthorities().isEmpty() || authentication.getAuthorities().contains(new SimpleGrantedAuthority("ROLE_ANONYMOUS"))) {
+        if (authentication.getAuthorities().isEmpty() || authentication.getAuthorities().contains(ANONYMOUS)) {
             log.warn("{} has no granted authorities!", authentication.getPrincipal());
             return ACCESS_DENIED;
         }
 
-        return authorizationService.authorizeRequest(authentication, invocation);
+        return authorizationService.authorizeRequest(authentication, role, requestUrl);
     }
 }
@@ -1,53 +1,92 @@
 package no.fint.portal.security;
 
 import no.finn.unleash.DefaultUnleash;
+import no.fint.portal.customer.service.ContactChangedEvent;
 import no.fint.portal.customer.service.IdentityMaskingService;
 import no.fint.portal.customer.service.PortalApiService;
 import no.fint.portal.exceptions.EntityNotFoundException;
 import no.fint.portal.model.contact.Contact;
 import no.fint.portal.model.organisation.Organisation;
-import no.fint.portal.model.organisation.OrganisationService;
 import org.apache.commons.lang3.StringUtils;
-import org.springframework.cache.annotation.Cacheable;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.context.event.EventListener;
 import org.springframework.security.core.userdetails.User;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
 
+import java.time.Duration;
 import java.util.*;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
+/**
+ * Users are cached for hours. Role and contact changes evict the user on the pod that made them, other replicas
+ * check the {@code modifyTimestamp} of the contact once a user is older than {@code fint.portal.users.revalidate}
+ * and reload it if the contact has changed since.
+ */
 @Service
 public class UserService implements UserDetailsService {
 
+    public static final String USERS = "users";
+
     private final PortalApiService portalApiService;
-    private final OrganisationService organisationService;
     private final IdentityMaskingService identityMaskingService;
     private final DefaultUnleash unleashClient;
+    private final Cache users;
+    private final long revalidateNanos;
 
-    public UserService(PortalApiService portalApiService, OrganisationService organisationService, IdentityMaskingService identityMaskingService, DefaultUnleash unleashClient) {
+    public UserService(
+            PortalApiService portalApiService,
+            IdentityMaskingService identityMaskingService,
+            DefaultUnleash unleashClient,
+            CacheManager cacheManager,
+            @Value("${fint.portal.users.revalidate:PT30S}") Duration revalidate) {
         this.portalApiService = portalApiService;
-        this.organisationService = organisationService;
         this.identityMaskingService = identityMaskingService;
         this.unleashClient = unleashClient;
+        users = cacheManager.getCache(USERS);
+        revalidateNanos = revalidate.toNanos();
     }
 
     @Override
-    @Cacheable("users")
     public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
         if ("0".equals(username)) {
             return User.withUsername("DUMMY").password("").authorities(Collections.emptyList()).build();
         }
+        CachedUser cached = users.get(username, CachedUser.class);
+        if (cached != null && System.nanoTime() - cached.checkedAt < revalidateNanos) {
+            return cached.user;
+        }
+        // Read before the contact, so a change in between is found by the next check
+        String modified = portalApiService.getContactModifyTimestamp(username);
+        if (cached != null && modified != null && modified.equals(cached.modified)) {
+            cached.checkedAt = System.nanoTime();
+            return cached.user;
+        }
+        UserDetails user = loadUser(username);
+        users.put(username, new CachedUser(user, modified));
+        return user;
+    }
+
+    @EventListener
+    @CacheEvict(value = USERS, key = "#event.nin")
+    public void onContactChanged(ContactChangedEvent event) {
+    }
+
+    private UserDetails loadUser(String username) {
         try {
             final var contact = portalApiService.getContact(username);
-            return User.builder()
+            return new FintPortalUser(User.builder()
                     .passwordEncoder(identityMaskingService::mask)
                     .username(contact.getMail())
                     .password(contact.getNin())
                     .authorities(getAuthorities(contact))
-                    .build();
+                    .build());
         } catch (EntityNotFoundException e) {
             throw new UsernameNotFoundException(username);
         }
@@ -68,9 +107,8 @@ public class UserService implements UserDetailsService {
                     .map(FintPortalAuthority::create)
                     .collect(Collectors.toList());
         }
-        return stream(contact.getLegal(), contact.getTechnical())
-                .map(organisationService::getOrganisationByDn)
-                .flatMap(Optional::stream)
+        return portalApiService.getOrganisationsByDns(stream(contact.getLegal(), contact.getTechnical()).collect(Collectors.toList()))
+                .stream()
                 .map(Organisation::getName)
                 .map(FintPortalOrganizationAuthority::new)
                 .collect(Collectors.toList());
@@ -84,4 +122,15 @@ public class UserService implements UserDetailsService {
                 .filter(Objects::nonNull)
                 .flatMap(Collection::stream);
     }
+
+    private static final class CachedUser {
+        private final UserDetails user;
+        private final String modified;
+        private volatile long checkedAt = System.nanoTime();
+
+        private CachedUser(UserDetails user, String modified) {
+            this.user = user;
+            this.modified = modified;
+        }
+    }
 }
@@ -0,0 +1,84 @@
+package no.fint.portal.customer.service
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry
+import no.fint.portal.customer.config.BulkheadConfig
+import no.fint.portal.customer.config.CacheConfig
+import spock.lang.Specification
+
+import java.time.Duration
+import java.util.concurrent.Executors
+import java.util.concurrent.TimeUnit
+
+class AdaptiveBulkheadSpec extends Specification {
+
+    def meterRegistry = new SimpleMeterRegistry()
+    AdaptiveBulkhead bulkhead = new AdaptiveBulkhead('ldap', 64,
+            new BulkheadConfig.Adaptive(initialLimit: 16, minLimit: 2, tolerance: 1.5, smoothing: 0.2),
+            Duration.ofSeconds(1), meterRegistry)
+
+    def 'Limit grows while latency is steady'() {
+        when:
+        windows(20, 10, 16)
+
+        then:
+        bulkhead.limit > 16
+        bulkhead.limit <= 64
+    }
+
+    def 'Limit shrinks when latency rises'() {
+        given:
+        windows(5, 10, 16)
+        def before = bulkhead.limit
+
+        when:
+        windows(5, 100, before)
+
+        then:
+        bulkhead.limit < before
+        bulkhead.limit >= 2
+        meterRegistry.get('fint.bulkhead.rtt').tag('window', 'short').gauge().value() == 0.1d
+    }
+
+    def 'Limit is left alone while little of it is used'() {
+        when:
+        windows(20, 100, 1)
+
+        then:
+        bulkhead.limit == 16
+    }
+
+    def 'Cache hits are not sampled'() {
+        given:
+        def registry = new SimpleMeterRegistry()
+        def bulkheads = new Bulkheads(new BulkheadConfig(limits: [ldap: 64],
+                adaptive: [ldap: new BulkheadConfig.Adaptive(initialLimit: 16)]), registry)
+        def ldapCalls = new LdapCalls(bulkheads, registry, 5, Duration.ofSeconds(30))
+        def entityCache = new EntityCache(new CacheConfig(), new LastKnownGood(new CacheConfig(), registry, [] as Set), registry)
+        def load = { String key -> entityCache.get(EntityCache.CLIENTS, key, { ldapCalls.call { Thread.sleep(5); key } }) }
+        def executor = Executors.newFixedThreadPool(16)
+
+        when:
+        load('hot')
+        (0..<16).collect { thread ->
+            executor.submit({
+                20.times { miss ->
+                    50.times { load('hot') }
+                    load("miss-$thread-$miss")
+                }
+            })
+        }*.get(10, TimeUnit.SECONDS)
+
+        then:
+        registry.get('fint.bulkhead.rtt').tag('window', 'short').gauge().value() >= 0.005d
+        bulkheads.get(Bulkheads.LDAP).limit >= 16
+
+        cleanup:
+        executor.shutdownNow()
+    }
+
+    private void windows(int count, long rttMillis, int inFlight) {
+        (count * AdaptiveBulkhead.WINDOW).times {
+            bulkhead.onCompleted(TimeUnit.MILLISECONDS.toNanos(rttMillis), inFlight)
+        }
+    }
+}
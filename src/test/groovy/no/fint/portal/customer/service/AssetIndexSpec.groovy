@@ -0,0 +1,38 @@
+package no.fint.portal.customer.service
+
+import no.fint.portal.model.asset.Asset
+import spock.lang.Specification
+
+class AssetIndexSpec extends Specification {
+
+    def primary = new Asset(name: 'test_no', assetId: 'test.no', primaryAsset: true)
+    def secondary = new Asset(name: 'skole_test_no', assetId: 'skole.test.no', primaryAsset: false)
+
+    def 'Assets are found by name'() {
+        given:
+        def index = new AssetIndex([primary, secondary])
+
+        expect:
+        index.getByName('skole_test_no').get().is(secondary)
+        index.getByName('test_no').get().is(primary)
+        index.getByName('skole.test.no').isEmpty()
+        index.assets == [primary, secondary]
+    }
+
+    def 'The first primary asset is the primary asset'() {
+        given:
+        def other = new Asset(name: 'other_test_no', assetId: 'other.test.no', primaryAsset: true)
+
+        expect:
+        new AssetIndex([secondary, primary, other]).primaryAsset.get().is(primary)
+        new AssetIndex([secondary]).primaryAsset.isEmpty()
+    }
+
+    def 'The index cannot be modified'() {
+        when:
+        new AssetIndex([primary]).assets.add(secondary)
+
+        then:
+        thrown(UnsupportedOperationException)
+    }
+}
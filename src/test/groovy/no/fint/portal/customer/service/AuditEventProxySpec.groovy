@@ -0,0 +1,132 @@
+package no.fint.portal.customer.service
+
+import com.fasterxml.jackson.databind.ObjectMapper
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry
+import no.fint.portal.customer.config.BulkheadConfig
+import no.fint.portal.customer.exception.InvalidQueryException
+import org.springframework.boot.test.web.client.MockServerRestTemplateCustomizer
+import org.springframework.boot.web.client.RestTemplateBuilder
+import org.springframework.http.HttpHeaders
+import org.springframework.http.MediaType
+import org.springframework.http.client.SimpleClientHttpRequestFactory
+import org.springframework.mock.web.MockHttpServletRequest
+import org.springframework.mock.web.MockHttpServletResponse
+import spock.lang.Specification
+
+import java.util.zip.GZIPOutputStream
+
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.header
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.requestTo
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withSuccess
+
+class AuditEventProxySpec extends Specification {
+
+    static final String URI = 'https://api.felleskomponent.no/events/api/test.no/administrasjon/personal'
+    static final String EVENTS = '[{"corrId":"a","timestamp":1000},{"corrId":"b","timestamp":2000},{"corrId":"c","timestamp":3000}]'
+
+    def customizer = new MockServerRestTemplateCustomizer()
+    def objectMapper = new ObjectMapper()
+    def proxy = new AuditEventProxy('user', 'password', new RestTemplateBuilder(customizer), new SimpleClientHttpRequestFactory(), objectMapper,
+            new Bulkheads(new BulkheadConfig(), new SimpleMeterRegistry()))
+    def request = new MockHttpServletRequest('GET', '/api/events/test_no/api/administrasjon/personal')
+    def response = new MockHttpServletResponse()
+
+    def 'Without a query the gzipped upstream body is passed through'() {
+        given:
+        def gzipped = gzip(EVENTS)
+        request.addHeader(HttpHeaders.ACCEPT_ENCODING, 'gzip, deflate')
+        customizer.server.expect(requestTo(URI))
+                .andExpect(header(HttpHeaders.ACCEPT_ENCODING, 'gzip'))
+                .andRespond(withSuccess(gzipped, MediaType.APPLICATION_JSON).headers(contentEncoding('gzip')))
+
+        when:
+        proxy.stream(request, response, AuditEventQuery.of(null, null, null, null, null), URI)
+
+        then:
+        response.status == 200
+        response.getHeader(HttpHeaders.CONTENT_ENCODING) == 'gzip'
+        response.contentAsByteArray == gzipped
+        customizer.server.verify()
+    }
+
+    def 'With a query events are selected from the decoded upstream body'() {
+        given:
+        customizer.server.expect(requestTo(URI))
+                .andRespond(withSuccess(gzip(EVENTS), MediaType.APPLICATION_JSON).headers(contentEncoding('gzip')))
+
+        when:
+        proxy.stream(request, response, AuditEventQuery.of('/corrId=b', null, null, null, null), URI)
+
+        then:
+        response.status == 200
+        response.getHeader(HttpHeaders.CONTENT_ENCODING) == null
+        objectMapper.readTree(response.contentAsString) == objectMapper.readTree('[{"corrId":"b","timestamp":2000}]')
+    }
+
+    def 'A full page links to the next page'() {
+        given:
+        customizer.server.expect(requestTo(URI)).andRespond(withSuccess(EVENTS, MediaType.APPLICATION_JSON))
+
+        when:
+        proxy.stream(request, response, AuditEventQuery.of(null, null, null, 2, null), URI)
+
+        then:
+        objectMapper.readTree(response.contentAsString)*.get('corrId')*.asText() == ['a', 'b']
+        response.getHeader(HttpHeaders.LINK) ==~ /<.*cursor=.*>; rel="next"/
+    }
+
+    def 'The next page continues after the cursor event'() {
+        given:
+        def cursor = AuditEventQuery.cursorAfter(objectMapper.readTree('{"corrId":"a","timestamp":1000}'), 0)
+        customizer.server.expect(requestTo(URI)).andRespond(withSuccess(EVENTS, MediaType.APPLICATION_JSON))
+
+        when:
+        proxy.stream(request, response, AuditEventQuery.of(null, null, null, 2, cursor), URI)
+
+        then:
+        objectMapper.readTree(response.contentAsString)*.get('corrId')*.asText() == ['b', 'c']
+        response.getHeader(HttpHeaders.LINK) == null
+    }
+
+    def 'A cursor to an event that is gone is rejected'() {
+        given:
+        def cursor = AuditEventQuery.cursorAfter(objectMapper.readTree('{"corrId":"x","timestamp":1000}'), 0)
+        customizer.server.expect(requestTo(URI)).andRespond(withSuccess(EVENTS, MediaType.APPLICATION_JSON))
+
+        when:
+        proxy.stream(request, response, AuditEventQuery.of(null, null, null, 2, cursor), URI)
+
+        then:
+        thrown(InvalidQueryException)
+    }
+
+    def 'Pages continue after events without corrId and between duplicates'() {
+        given:
+        def events = '[{"timestamp":1000,"n":1},{"timestamp":1000,"n":2},{"timestamp":1000,"n":3},{"corrId":"d","timestamp":2000,"n":4}]'
+        customizer.server.expect(requestTo(URI)).andRespond(withSuccess(events, MediaType.APPLICATION_JSON))
+        customizer.server.expect(requestTo(URI)).andRespond(withSuccess(events, MediaType.APPLICATION_JSON))
+
+        when:
+        proxy.stream(request, response, AuditEventQuery.of(null, null, null, 2, null), URI)
+        def first = objectMapper.readTree(response.contentAsString)*.get('n')*.asInt()
+        def cursor = (response.getHeader(HttpHeaders.LINK) =~ /cursor=([^&>]+)/)[0][1]
+        def next = new MockHttpServletResponse()
+        proxy.stream(request, next, AuditEventQuery.of(null, null, null, 2, cursor), URI)
+
+        then:
+        first == [1, 2]
+        objectMapper.readTree(next.contentAsString)*.get('n')*.asInt() == [3, 4]
+    }
+
+    private static byte[] gzip(String body) {
+        def bytes = new ByteArrayOutputStream()
+        new GZIPOutputStream(bytes).withStream { it.write(body.bytes) }
+        bytes.toByteArray()
+    }
+
+    private static HttpHeaders contentEncoding(String encoding) {
+        def headers = new HttpHeaders()
+        headers.set(HttpHeaders.CONTENT_ENCODING, encoding)
+        headers
+    }
+}
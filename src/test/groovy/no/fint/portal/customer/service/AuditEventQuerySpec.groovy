@@ -0,0 +1,72 @@
+package no.fint.portal.customer.service
+
+import com.fasterxml.jackson.databind.ObjectMapper
+import no.fint.portal.customer.exception.InvalidQueryException
+import spock.lang.Specification
+
+import java.time.Instant
+
+class AuditEventQuerySpec extends Specification {
+
+    def objectMapper = new ObjectMapper()
+
+    def 'Time window and filter select events'() {
+        given:
+        def query = AuditEventQuery.of('/corrId=abc', Instant.ofEpochMilli(1000), Instant.ofEpochMilli(2000), null, null)
+
+        expect:
+        query.test(objectMapper.readTree(event)) == selected
+
+        where:
+        event                                     || selected
+        '{"corrId":"abc","timestamp":1000}'       || true
+        '{"corrId":"abc","timestamp":1999}'       || true
+        '{"corrId":"abc","timestamp":2000}'       || false
+        '{"corrId":"abc","timestamp":999}'        || false
+        '{"corrId":"abc"}'                        || false
+        '{"corrId":"xyz","timestamp":1500}'       || false
+    }
+
+    def 'The cursor points to the last event of the page'() {
+        given:
+        def last = objectMapper.readTree('{"corrId":"a:b","timestamp":1500}')
+
+        when:
+        def query = AuditEventQuery.of(null, null, null, 10, AuditEventQuery.cursorAfter(last, 1))
+
+        then:
+        query.hasCursor()
+        query.isCursor(last, 1)
+        !query.isCursor(last, 0)
+        !query.isCursor(objectMapper.readTree('{"corrId":"a:b","timestamp":1501}'), 1)
+        !query.isCursor(objectMapper.readTree('{"corrId":"a","timestamp":1500}'), 1)
+        !query.passThrough
+    }
+
+    def 'An event without corrId can be the cursor'() {
+        given:
+        def last = objectMapper.readTree('{"timestamp":1500}')
+
+        expect:
+        AuditEventQuery.of(null, null, null, 10, AuditEventQuery.cursorAfter(last, 0)).isCursor(last, 0)
+    }
+
+    def 'Invalid parameters are rejected'() {
+        when:
+        AuditEventQuery.of(filter, null, null, limit, cursor)
+
+        then:
+        thrown(InvalidQueryException)
+
+        where:
+        filter  | limit | cursor
+        'corrId' | null  | null
+        null    | 0     | null
+        null    | 1001  | null
+        null    | 10    | 'not-a-cursor'
+        null    | 10    | Base64.urlEncoder.encodeToString('offset:10'.bytes)
+        null    | 10    | Base64.urlEncoder.encodeToString('after:x:0:abc'.bytes)
+        null    | 10    | Base64.urlEncoder.encodeToString('after:1000:abc'.bytes)
+        null    | 10    | Base64.urlEncoder.encodeToString('after:1000:-1:abc'.bytes)
+    }
+}
@@ -0,0 +1,32 @@
+package no.fint.portal.customer.service
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry
+import no.fint.portal.customer.exception.BackendUnavailableException
+import spock.lang.Specification
+
+import java.time.Duration
+
+class BulkheadSpec extends Specification {
+
+    def meterRegistry = new SimpleMeterRegistry()
+    Bulkhead bulkhead = new Bulkhead('events', 1, Duration.ofSeconds(2), meterRegistry)
+
+    def 'Calls beyond the limit are shed and counted'() {
+        when:
+        bulkhead.call({ bulkhead.call({ 'nested' }) })
+
+        then:
+        def e = thrown(BackendUnavailableException)
+        e.backend == 'events'
+        e.retryAfter == Duration.ofSeconds(2)
+        meterRegistry.get('fint.bulkhead.shed').tag('backend', 'events').counter().count() == 1
+        bulkhead.inFlight == 0
+    }
+
+    def 'Permits are returned after a call'() {
+        expect:
+        bulkhead.call({ 'first' }) == 'first'
+        bulkhead.call({ 'second' }) == 'second'
+        bulkhead.inFlight == 0
+    }
+}
@@ -0,0 +1,67 @@
+package no.fint.portal.customer.service
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry
+import spock.lang.Specification
+
+import java.time.Duration
+
+import static no.fint.portal.customer.service.CircuitBreaker.State.*
+
+class CircuitBreakerSpec extends Specification {
+
+    def meterRegistry = new SimpleMeterRegistry()
+    CircuitBreaker circuitBreaker = new CircuitBreaker('ldap', 2, Duration.ofMillis(100), meterRegistry)
+
+    def 'Consecutive failures open the circuit'() {
+        when:
+        2.times {
+            assert circuitBreaker.tryAcquire()
+            circuitBreaker.onFailure()
+        }
+
+        then:
+        circuitBreaker.state == OPEN
+        !circuitBreaker.tryAcquire()
+        circuitBreaker.unavailable().retryAfter >= Duration.ofSeconds(1)
+        meterRegistry.get('fint.circuit.state').tag('state', 'open').gauge().value() == 1
+        meterRegistry.get('fint.circuit.state').tag('state', 'closed').gauge().value() == 0
+    }
+
+    def 'A success resets the failure count'() {
+        when:
+        circuitBreaker.onFailure()
+        circuitBreaker.onSuccess()
+        circuitBreaker.onFailure()
+
+        then:
+        circuitBreaker.state == CLOSED
+    }
+
+    def 'One trial call is let through after the open duration'() {
+        given:
+        2.times { circuitBreaker.onFailure() }
+
+        when:
+        Thread.sleep(150)
+
+        then:
+        circuitBreaker.tryAcquire()
+        circuitBreaker.state == HALF_OPEN
+        !circuitBreaker.tryAcquire()
+
+        when:
+        circuitBreaker.onFailure()
+
+        then:
+        circuitBreaker.state == OPEN
+
+        when:
+        Thread.sleep(150)
+        circuitBreaker.tryAcquire()
+        circuitBreaker.onSuccess()
+
+        then:
+        circuitBreaker.state == CLOSED
+        circuitBreaker.tryAcquire()
+    }
+}
@@ -0,0 +1,50 @@
+package no.fint.portal.customer.service
+
+import com.google.common.hash.Hashing
+import no.fint.portal.model.contact.Contact
+import spock.lang.Specification
+
+import java.util.concurrent.ForkJoinPool
+
+class CompactIdentityStoreSpec extends Specification {
+
+    def contactDn = { String nin -> "cn=${nin},ou=contacts,o=fint-test".toString() }
+    def hashFunction = Hashing.hmacMd5('0123456789abcdef'.bytes)
+
+    def contacts = [
+            new Contact(nin: '01234567890', dn: 'cn=01234567890,ou=contacts,o=fint-test'),
+            new Contact(nin: '12345678901', dn: 'cn=12345678901,ou=contacts,o=fint-test'),
+            new Contact(nin: '98765432109', dn: 'cn=98765432109,ou=Contacts,o=fint-test'),
+            new Contact(nin: '1234', dn: 'cn=1234,ou=contacts,o=fint-test')
+    ]
+
+    def 'Masks and unmasks like the identity map it replaces'() {
+        given:
+        def store = new IdentityMapBuilder(new ForkJoinPool(1)).build(contacts, hashFunction, contactDn)
+
+        when:
+        def hash = hashFunction.hashUnencodedChars(contact.nin).toString()
+
+        then:
+        store.mask(contact.nin) == hash
+        store.mask(contact.dn) == contactDn(hash)
+        store.unmask(hash) == contact.nin
+        store.unmask(contactDn(hash)) == contact.dn
+        store.size() == 8
+
+        where:
+        contact << contacts
+    }
+
+    def 'Unknown identities are not mapped'() {
+        given:
+        def store = new IdentityMapBuilder(new ForkJoinPool(1)).build(contacts, hashFunction, contactDn)
+
+        expect:
+        store.mask(value) == null
+        store.unmask(value) == null
+
+        where:
+        value << [null, '', '11111111111', 'cn=11111111111,ou=contacts,o=fint-test', '0' * 32, 'not a dn']
+    }
+}
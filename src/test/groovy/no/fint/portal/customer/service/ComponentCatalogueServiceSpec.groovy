@@ -0,0 +1,93 @@
+package no.fint.portal.customer.service
+
+import no.fint.portal.model.ComponentConfiguration
+import no.fint.portal.model.component.Component
+import spock.lang.Specification
+
+import java.time.Duration
+
+class ComponentCatalogueServiceSpec extends Specification {
+
+    static final String PERSONAL = 'ou=administrasjon_personal,ou=apis,o=fint'
+    static final String ELEV = 'ou=utdanning_elev,ou=apis,o=fint'
+    static final String KODEVERK = 'ou=felles_kodeverk,ou=apis,o=fint'
+
+    def portalApiService = Mock(PortalApiService)
+    def componentConfigurationService = Mock(ComponentConfigurationService)
+    def catalogueService = new ComponentCatalogueService(portalApiService, componentConfigurationService, Duration.ofHours(1), Duration.ZERO)
+
+    def personal = new Component(name: 'administrasjon_personal', dn: PERSONAL)
+    def elev = new Component(name: 'utdanning_elev', dn: ELEV)
+    def kodeverk = new Component(name: 'felles_kodeverk', dn: KODEVERK)
+    def snapshot = snapshot('"1"',
+            new ComponentConfiguration(dn: PERSONAL, name: 'administrasjon_personal', inProduction: true, inBeta: true),
+            new ComponentConfiguration(name: 'utdanning_elev', inPlayWithFint: true))
+
+    def 'Components are joined with configurations by DN or name and bucketed by status'() {
+        given:
+        portalApiService.getComponents() >> [personal, elev, kodeverk]
+        componentConfigurationService.getSnapshot() >> snapshot
+
+        expect:
+        catalogueService.getCatalogue()*.component*.name == ['administrasjon_personal', 'utdanning_elev', 'felles_kodeverk']
+        catalogueService.getCatalogue(ComponentStatus.PRODUCTION)*.component*.dn == [PERSONAL]
+        catalogueService.getCatalogue(ComponentStatus.BETA)*.component*.dn == [PERSONAL]
+        catalogueService.getCatalogue(ComponentStatus.PLAY_WITH_FINT)*.component*.dn == [ELEV]
+        catalogueService.getCatalogue(ComponentStatus.UNRELEASED)*.component*.dn == [KODEVERK]
+    }
+
+    def 'Entries hold copies of the cached components'() {
+        given:
+        portalApiService.getComponents() >> [personal]
+        componentConfigurationService.getSnapshot() >> snapshot
+
+        when:
+        def entry = catalogueService.getCatalogue().first()
+
+        then:
+        !entry.component.is(personal)
+        entry.component.name == personal.name
+        entry.component.dn == PERSONAL
+    }
+
+    def 'Only changed components are reloaded and unchanged entries are reused'() {
+        given:
+        portalApiService.getComponents() >> [personal, elev]
+        componentConfigurationService.getSnapshot() >> snapshot
+        def before = catalogueService.getCatalogue()
+
+        when:
+        catalogueService.onComponentsChanged(new ComponentsChangedEvent(ELEV))
+        def after = catalogueService.getCatalogue()
+
+        then:
+        0 * portalApiService.getComponents()
+        1 * portalApiService.getComponentByDn(ELEV) >> new Component(name: 'utdanning_elev_renamed', dn: ELEV)
+        after[0].is(before[0])
+        after[1].component.name == 'utdanning_elev_renamed'
+    }
+
+    def 'Changed configurations are joined again without reloading components'() {
+        given:
+        1 * portalApiService.getComponents() >> [personal, elev]
+        componentConfigurationService.getSnapshot() >>> [snapshot, snapshot('"2"', new ComponentConfiguration(dn: ELEV, inProduction: true))]
+        catalogueService.getCatalogue()
+
+        expect:
+        catalogueService.getCatalogue(ComponentStatus.PRODUCTION)*.component*.dn == [ELEV]
+        catalogueService.getCatalogue(ComponentStatus.UNRELEASED)*.component*.dn == [PERSONAL]
+    }
+
+    def 'Without the admin API the catalogue is built from LDAP only'() {
+        given:
+        portalApiService.getComponents() >> [personal, elev]
+        componentConfigurationService.getSnapshot() >> { throw new IllegalStateException('admin API unavailable') }
+
+        expect:
+        catalogueService.getCatalogue(ComponentStatus.UNRELEASED)*.component*.dn == [PERSONAL, ELEV]
+    }
+
+    private static ComponentConfigurationService.Snapshot snapshot(String etag, ComponentConfiguration... configurations) {
+        new ComponentConfigurationService.Snapshot(configurations.toList(), etag, null, null)
+    }
+}
@@ -0,0 +1,77 @@
+package no.fint.portal.customer.service
+
+import no.fint.portal.exceptions.EntityNotFoundException
+import spock.lang.Specification
+
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.Executors
+import java.util.concurrent.SynchronousQueue
+import java.util.concurrent.ThreadPoolExecutor
+import java.util.concurrent.TimeUnit
+
+class ConcurrentLookupSpec extends Specification {
+
+    def executor = Executors.newFixedThreadPool(2)
+    ConcurrentLookup concurrentLookup = new ConcurrentLookup(executor)
+
+    void cleanup() {
+        executor.shutdownNow()
+    }
+
+    def 'Lookups run concurrently and are passed to the action'() {
+        given:
+        def bothStarted = new CountDownLatch(2)
+        def result = []
+
+        when:
+        concurrentLookup.resolve(
+                { bothStarted.countDown(); bothStarted.await(5, TimeUnit.SECONDS); 'asset' },
+                { bothStarted.countDown(); bothStarted.await(5, TimeUnit.SECONDS); 'client' },
+                { a, b -> result << a << b })
+
+        then:
+        bothStarted.count == 0
+        result == ['asset', 'client']
+    }
+
+    def 'First failure is rethrown without waiting for the other lookup'() {
+        given:
+        def release = new CountDownLatch(1)
+        def acted = false
+
+        when:
+        concurrentLookup.resolve(
+                { release.await(); 'asset' },
+                { throw new EntityNotFoundException('Client test not found.') },
+                { a, b -> acted = true })
+
+        then:
+        def e = thrown(EntityNotFoundException)
+        e.message == 'Client test not found.'
+        !acted
+
+        cleanup:
+        release.countDown()
+    }
+
+    def 'Lookups run on the calling thread when the executor is busy'() {
+        given:
+        def busy = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS, new SynchronousQueue<>(), new ThreadPoolExecutor.CallerRunsPolicy())
+        def release = new CountDownLatch(1)
+        busy.execute({ release.await() })
+        def threads = []
+
+        when:
+        new ConcurrentLookup(busy).resolve(
+                { threads << Thread.currentThread(); 'asset' },
+                { threads << Thread.currentThread(); 'client' },
+                { a, b -> })
+
+        then:
+        threads == [Thread.currentThread(), Thread.currentThread()]
+
+        cleanup:
+        release.countDown()
+        busy.shutdownNow()
+    }
+}
@@ -0,0 +1,40 @@
+package no.fint.portal.customer.service
+
+import spock.lang.Specification
+
+import java.nio.file.Files
+
+class DirectoryKeyEpochProviderSpec extends Specification {
+
+    def directory = Files.createTempDirectory('identity')
+
+    void setup() {
+        directory.resolve(DirectoryKeyEpochProvider.MASTER_KEY).bytes = 'shared-master-secret'.bytes
+    }
+
+    void cleanup() {
+        directory.toFile().deleteDir()
+    }
+
+    def 'Replicas sharing a master key derive the same key for an epoch'() {
+        given:
+        def replica1 = new DirectoryKeyEpochProvider(directory)
+        def replica2 = new DirectoryKeyEpochProvider(directory)
+
+        expect:
+        replica1.getKey(42, 32) == replica2.getKey(42, 32)
+        replica1.getKey(42, 32) != replica1.getKey(43, 32)
+        replica1.getKey(42, 48).length == 48
+    }
+
+    def 'Missing master key fails'() {
+        given:
+        def provider = new DirectoryKeyEpochProvider(directory.resolve('missing'))
+
+        when:
+        provider.getKey(42, 16)
+
+        then:
+        thrown(UncheckedIOException)
+    }
+}
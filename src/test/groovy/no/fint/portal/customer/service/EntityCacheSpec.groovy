@@ -0,0 +1,164 @@
+package no.fint.portal.customer.service
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry
+import no.fint.portal.customer.config.BulkheadConfig
+import no.fint.portal.customer.config.CacheConfig
+import no.fint.portal.customer.exception.BackendUnavailableException
+import no.fint.portal.model.client.Client
+import no.fint.portal.model.client.ClientService
+import no.fint.portal.model.organisation.Organisation
+import org.springframework.ldap.CommunicationException
+import spock.lang.Specification
+
+import java.time.Duration
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.Executors
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.atomic.AtomicInteger
+
+class EntityCacheSpec extends Specification {
+
+    def meterRegistry = new SimpleMeterRegistry()
+    EntityCache entityCache = new EntityCache(new CacheConfig(),
+            new LastKnownGood(new CacheConfig(), meterRegistry, [EntityCache.CLIENTS] as Set), meterRegistry)
+    LdapCalls ldapCalls = new LdapCalls(new Bulkheads(new BulkheadConfig(), meterRegistry), meterRegistry, 1, Duration.ofSeconds(30))
+
+    def 'Loads once and serves the cached value until evicted'() {
+        given:
+        def loads = new AtomicInteger()
+
+        when:
+        def first = entityCache.get(EntityCache.CLIENTS, 'test_no/client', { loads.incrementAndGet() })
+        def second = entityCache.get(EntityCache.CLIENTS, 'test_no/client', { loads.incrementAndGet() })
+        entityCache.evict(EntityCache.CLIENTS, 'test_no/client')
+        def third = entityCache.get(EntityCache.CLIENTS, 'test_no/client', { loads.incrementAndGet() })
+
+        then:
+        first == 1
+        second == 1
+        third == 2
+    }
+
+    def 'Failed loads are not cached'() {
+        when:
+        entityCache.get(EntityCache.CLIENTS, 'test_no/client', { throw new IllegalStateException('LDAP down') })
+
+        then:
+        thrown(IllegalStateException)
+        entityCache.get(EntityCache.CLIENTS, 'test_no/client', { 'loaded' }) == 'loaded'
+    }
+
+    def 'An eviction during a load drops the load'() {
+        given:
+        def started = new CountDownLatch(1)
+        def release = new CountDownLatch(1)
+        def executor = Executors.newSingleThreadExecutor()
+
+        when:
+        def loading = executor.submit({
+            entityCache.get(EntityCache.CLIENTS, 'test_no/client', {
+                started.countDown()
+                release.await()
+                'before update'
+            })
+        })
+        started.await()
+        entityCache.evict(EntityCache.CLIENTS, 'test_no/client')
+        release.countDown()
+
+        then:
+        loading.get(5, TimeUnit.SECONDS) == 'before update'
+        entityCache.get(EntityCache.CLIENTS, 'test_no/client', { 'after update' }) == 'after update'
+
+        cleanup:
+        executor.shutdownNow()
+    }
+
+    def 'Organisation scope eviction leaves other organisations and caches alone'() {
+        given:
+        ['test_no', 'test_no/client', 'test_no_two', 'test_no_two/client'].each { key ->
+            entityCache.get(EntityCache.CLIENTS, key, { 'cached' })
+        }
+        entityCache.get(EntityCache.ADAPTERS, 'test_no/adapter', { 'cached' })
+
+        when:
+        entityCache.evictOrganisationScope(EntityCache.CLIENTS, 'test_no')
+
+        then:
+        entityCache.get(EntityCache.CLIENTS, 'test_no', { 'reloaded' }) == 'reloaded'
+        entityCache.get(EntityCache.CLIENTS, 'test_no/client', { 'reloaded' }) == 'reloaded'
+        entityCache.get(EntityCache.CLIENTS, 'test_no_two', { 'reloaded' }) == 'cached'
+        entityCache.get(EntityCache.CLIENTS, 'test_no_two/client', { 'reloaded' }) == 'cached'
+        entityCache.get(EntityCache.ADAPTERS, 'test_no/adapter', { 'reloaded' }) == 'cached'
+    }
+
+    def 'Reads for update are not shared with cached reads'() {
+        given:
+        def clientService = Mock(ClientService) {
+            getClient('client', 'test_no') >> { Optional.of(new Client(name: 'client', note: 'original')) }
+        }
+        def portalApiService = new PortalApiService(null, null, null, clientService, null, null, null,
+                new RequestCoalescer(), ldapCalls, entityCache, null, 'ou=contacts', null)
+        def organisation = new Organisation(name: 'test_no')
+
+        when:
+        def cached = portalApiService.getClient(organisation, 'client')
+        def forUpdate = portalApiService.getClientForUpdate(organisation, 'client')
+        forUpdate.note = 'modified'
+
+        then:
+        !forUpdate.is(cached)
+        portalApiService.getClient(organisation, 'client').is(cached)
+        cached.note == 'original'
+    }
+
+    def 'Falls back to a copy of the last known good entity while the directory is unavailable'() {
+        given:
+        def key = 'test_no/client'
+        def loads = new AtomicInteger()
+        entityCache.get(EntityCache.CLIENTS, key, { new Client(name: 'client', note: 'original') })
+        entityCache.evict(EntityCache.CLIENTS, key)
+        def stale = StaleReads.begin()
+
+        when:
+        Client first = entityCache.get(EntityCache.CLIENTS, key, {
+            ldapCalls.call { throw new CommunicationException(new javax.naming.CommunicationException()) }
+        })
+        first.note = 'modified'
+        Client second = entityCache.get(EntityCache.CLIENTS, key, { ldapCalls.call { loads.incrementAndGet() } })
+
+        then:
+        stale.get()
+        first.name == 'client'
+        second.note == 'original'
+        loads.get() == 0
+        meterRegistry.get('fint.circuit.stale').counter().count() == 2
+
+        cleanup:
+        StaleReads.end()
+    }
+
+    def 'Lists of entities fall back too'() {
+        given:
+        entityCache.get(EntityCache.CLIENTS, 'test_no', { [new Client(name: 'a'), new Client(name: 'b')] })
+        entityCache.evict(EntityCache.CLIENTS, 'test_no')
+
+        when:
+        List<Client> clients = entityCache.get(EntityCache.CLIENTS, 'test_no', { throw new BackendUnavailableException('ldap', Duration.ofSeconds(1)) })
+
+        then:
+        clients*.name == ['a', 'b']
+    }
+
+    def 'Caches without a fallback fail while the circuit is open'() {
+        given:
+        entityCache.get(EntityCache.ADAPTERS, 'test_no/adapter', { 'cached' })
+        entityCache.evict(EntityCache.ADAPTERS, 'test_no/adapter')
+
+        when:
+        entityCache.get(EntityCache.ADAPTERS, 'test_no/adapter', { throw new BackendUnavailableException('ldap', Duration.ofSeconds(1)) })
+
+        then:
+        thrown(BackendUnavailableException)
+    }
+}
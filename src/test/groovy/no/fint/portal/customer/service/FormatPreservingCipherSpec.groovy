@@ -0,0 +1,39 @@
+package no.fint.portal.customer.service
+
+import spock.lang.Specification
+
+class FormatPreservingCipherSpec extends Specification {
+
+    FormatPreservingCipher cipher = new FormatPreservingCipher('0123456789abcdef0123456789abcdef'.bytes)
+
+    def 'Encryption preserves format and is reversible'() {
+        when:
+        def masked = cipher.encrypt(nin)
+
+        then:
+        masked.length() == nin.length()
+        masked ==~ /\d+/
+        masked != nin
+        cipher.decrypt(masked) == nin
+
+        where:
+        nin << ['12345678901', '23456789012', '00000000000', '99999999999', '0123']
+    }
+
+    def 'Encryption is deterministic for a key and differs between keys'() {
+        given:
+        def other = new FormatPreservingCipher('fedcba9876543210fedcba9876543210'.bytes)
+
+        expect:
+        cipher.encrypt('12345678901') == cipher.encrypt('12345678901')
+        cipher.encrypt('12345678901') != other.encrypt('12345678901')
+    }
+
+    def 'Non-decimal input is rejected'() {
+        when:
+        cipher.encrypt('cn=12345678901')
+
+        then:
+        thrown(IllegalArgumentException)
+    }
+}
@@ -0,0 +1,32 @@
+package no.fint.portal.customer.service
+
+import no.fint.portal.model.contact.ContactObjectService
+import spock.lang.Specification
+
+class FormatPreservingIdentityMappingSpec extends Specification {
+
+    def contactObjectService = Mock(ContactObjectService) {
+        getContactDn(_ as String) >> { String nin -> "cn=${nin},ou=contacts,o=fint".toString() }
+    }
+    def mapping = new FormatPreservingIdentityMapping(new FormatPreservingCipher('0123456789abcdef0123456789abcdef'.bytes), contactObjectService)
+
+    def 'NINs and contact DNs are masked reversibly'() {
+        when:
+        def nin = mapping.mask('12345678901')
+        def dn = mapping.mask('cn=12345678901,ou=contacts,o=fint')
+
+        then:
+        nin ==~ /f\d{11}/
+        dn == "cn=${nin},ou=contacts,o=fint".toString()
+        mapping.unmask(nin) == '12345678901'
+        mapping.unmask(dn) == 'cn=12345678901,ou=contacts,o=fint'
+    }
+
+    def 'Values without the marker are not unmasked'() {
+        expect:
+        mapping.unmask(value) == null
+
+        where:
+        value << ['12345678901', 'cn=12345678901,ou=contacts,o=fint', 'f', 'fabc', null]
+    }
+}
@@ -0,0 +1,89 @@
+package no.fint.portal.customer.service
+
+import no.fint.portal.customer.exception.InvalidQueryException
+import no.fint.portal.model.contact.Contact
+import no.fint.portal.model.contact.ContactObjectService
+import spock.lang.Specification
+
+import java.time.Duration
+
+class IdentityMaskingServiceSpec extends Specification {
+
+    def keyEpochProvider = Stub(KeyEpochProvider) {
+        getCurrentEpoch() >> 1L
+        getKey(_, _) >> { long epoch, int length -> new byte[length] }
+    }
+    def portalApiService = Mock(PortalApiService)
+
+    def 'A failed build is not retried by every reader'() {
+        given:
+        def service = new IdentityMaskingService(keyEpochProvider, portalApiService, 'map', 1,
+                Duration.ofMinutes(10), Duration.ofMinutes(1), Mock(ContactObjectService))
+
+        when:
+        10.times { service.mask('12345678901') }
+
+        then:
+        1 * portalApiService.getContacts() >> []
+    }
+
+    def 'Contact pages continue after their cursor'() {
+        given:
+        def service = fpe()
+        def contacts = (1..4).collect { new Contact(nin: "1234567890$it".toString()) }
+
+        when:
+        def first = service.getMaskedContactPage(null, 2)
+        def second = service.getMaskedContactPage(ContactCursor.of(first.next.encode()), 2)
+
+        then:
+        1 * portalApiService.getContacts(0, 3, 2) >> contacts[0..2]
+        1 * portalApiService.getContacts(1, 4, 2) >> contacts[1..3]
+        first.contacts*.nin == [service.mask('12345678901'), service.mask('12345678902')]
+        second.contacts*.nin == [service.mask('12345678903'), service.mask('12345678904')]
+        second.next == null
+    }
+
+    def 'A cursor the directory has shifted under is rejected'() {
+        given:
+        def service = fpe()
+
+        when:
+        service.getMaskedContactPage(new ContactCursor(2, service.mask('12345678902')), 2)
+
+        then:
+        1 * portalApiService.getContacts(1, 4, 2) >> [new Contact(nin: '12345678903')]
+        thrown(InvalidQueryException)
+    }
+
+    def 'Page size and cursor are validated'() {
+        when:
+        fpe().getMaskedContactPage(null, pageSize)
+
+        then:
+        thrown(InvalidQueryException)
+
+        where:
+        pageSize << [0, -1, ContactPage.MAX_PAGE_SIZE + 1]
+    }
+
+    def 'Invalid cursors are rejected'() {
+        when:
+        ContactCursor.of(cursor)
+
+        then:
+        thrown(InvalidQueryException)
+
+        where:
+        cursor << ['not base64!', encode('at:0:f1'), encode('at:x:f1'), encode('at:2:'), encode('after:2:f1')]
+    }
+
+    private IdentityMaskingService fpe() {
+        new IdentityMaskingService(keyEpochProvider, portalApiService, 'fpe', 1,
+                Duration.ofMinutes(10), Duration.ofMinutes(1), Mock(ContactObjectService))
+    }
+
+    private static String encode(String value) {
+        Base64.urlEncoder.withoutPadding().encodeToString(value.bytes)
+    }
+}
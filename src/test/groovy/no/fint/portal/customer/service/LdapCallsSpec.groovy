@@ -0,0 +1,33 @@
+package no.fint.portal.customer.service
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry
+import no.fint.portal.customer.config.BulkheadConfig
+import no.fint.portal.customer.exception.BackendUnavailableException
+import org.springframework.ldap.CommunicationException
+import spock.lang.Specification
+
+import java.time.Duration
+
+class LdapCallsSpec extends Specification {
+
+    def meterRegistry = new SimpleMeterRegistry()
+    def ldapCalls = new LdapCalls(new Bulkheads(new BulkheadConfig(), meterRegistry), meterRegistry, 2, Duration.ofSeconds(30))
+
+    def 'Connection failures are reported as unavailable before the circuit opens'() {
+        when:
+        ldapCalls.call { throw new CommunicationException(new javax.naming.CommunicationException('refused')) }
+
+        then:
+        def e = thrown(BackendUnavailableException)
+        e.cause instanceof CommunicationException
+        e.retryAfter >= Duration.ofSeconds(1)
+    }
+
+    def 'Other failures are passed on'() {
+        when:
+        ldapCalls.call { throw new IllegalStateException('invalid') }
+
+        then:
+        thrown(IllegalStateException)
+    }
+}
@@ -0,0 +1,65 @@
+package no.fint.portal.customer.service
+
+import spock.lang.Specification
+
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.Executors
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.atomic.AtomicInteger
+
+class RequestCoalescerSpec extends Specification {
+
+    RequestCoalescer requestCoalescer = new RequestCoalescer()
+
+    def 'Concurrent calls with the same key share one invocation'() {
+        given:
+        def calls = new AtomicInteger()
+        def started = new CountDownLatch(1)
+        def release = new CountDownLatch(1)
+        def executor = Executors.newFixedThreadPool(4)
+
+        when:
+        def first = executor.submit({
+            requestCoalescer.execute(['getOrganisation', 'test_no'], {
+                calls.incrementAndGet()
+                started.countDown()
+                release.await()
+                'result'
+            })
+        })
+        started.await()
+        def followers = (1..3).collect {
+            executor.submit({ requestCoalescer.execute(['getOrganisation', 'test_no'], { calls.incrementAndGet(); 'other' }) })
+        }
+        Thread.sleep(100)
+        release.countDown()
+
+        then:
+        first.get(5, TimeUnit.SECONDS) == 'result'
+        followers*.get(5, TimeUnit.SECONDS) == ['result', 'result', 'result']
+        calls.get() == 1
+
+        cleanup:
+        executor.shutdownNow()
+    }
+
+    def 'Calls with different keys are not coalesced'() {
+        expect:
+        requestCoalescer.execute(['getOrganisation', 'a'], { 'a' }) == 'a'
+        requestCoalescer.execute(['getOrganisation', 'b'], { 'b' }) == 'b'
+    }
+
+    def 'Failures are propagated and not retained'() {
+        when:
+        requestCoalescer.execute(['getContacts'], { throw new IllegalStateException('ldap down') })
+
+        then:
+        thrown(IllegalStateException)
+
+        when:
+        def result = requestCoalescer.execute(['getContacts'], { 'ok' })
+
+        then:
+        result == 'ok'
+    }
+}
@@ -45,9 +45,9 @@ class AuthorizationServiceSpec extends Specification {
     }
 
     def 'Admin authentication has access to all paths, but not for another org'() {
-        2 * filterInvocation.getRequestUrl() >> '/api/adapters/test_no/'
-        2 * filterInvocation.getRequestUrl() >> '/api/clients/test_no'
-        2 * filterInvocation.getRequestUrl() >> '/api/clients/another_org'
+        1 * filterInvocation.getRequestUrl() >> '/api/adapters/test_no/'
+        1 * filterInvocation.getRequestUrl() >> '/api/clients/test_no'
+        1 * filterInvocation.getRequestUrl() >> '/api/clients/another_org'
 
         expect:
         authorizationService.authorizeRequest(adminAuthentication, filterInvocation) == ACCESS_GRANTED
@@ -56,8 +56,8 @@ class AuthorizationServiceSpec extends Specification {
     }
 
     def 'User authentication does not have access to client'() {
-        2 * filterInvocation.getRequestUrl() >> '/api/adapters/test_no'
-        2 * filterInvocation.getRequestUrl() >> '/api/clients/test_no/'
+        1 * filterInvocation.getRequestUrl() >> '/api/adapters/test_no'
+        1 * filterInvocation.getRequestUrl() >> '/api/clients/test_no/'
 
         expect:
         authorizationService.authorizeRequest(userAuthentication, filterInvocation) == ACCESS_GRANTED
@@ -66,9 +66,9 @@ class AuthorizationServiceSpec extends Specification {
     }
 
     def 'Org authentication has access to all paths, but not for another org'() {
-        2 * filterInvocation.getRequestUrl() >> '/api/adapters/test_no'
-        2 * filterInvocation.getRequestUrl() >> '/api/clients/test_no/'
-        2 * filterInvocation.getRequestUrl() >> '/api/clients/another_org'
+        1 * filterInvocation.getRequestUrl() >> '/api/adapters/test_no'
+        1 * filterInvocation.getRequestUrl() >> '/api/clients/test_no/'
+        1 * filterInvocation.getRequestUrl() >> '/api/clients/another_org'
 
         expect:
         authorizationService.authorizeRequest(orgAuthentication, filterInvocation) == ACCESS_GRANTED